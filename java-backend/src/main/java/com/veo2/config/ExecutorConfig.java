@@ -0,0 +1,120 @@
+package com.veo2.config;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+
+import java.util.concurrent.RejectedExecutionHandler;
+import java.util.concurrent.ThreadPoolExecutor;
+
+/**
+ * Dedicated thread pools for each pipeline stage
+ * Keeps slow generation, polling, downloads and ffmpeg work off the common ForkJoinPool
+ * and isolated from each other
+ */
+@Configuration
+@EnableConfigurationProperties(ExecutorProperties.class)
+public class ExecutorConfig {
+
+    private static final Logger log = LoggerFactory.getLogger(ExecutorConfig.class);
+
+    @Bean
+    public ThreadPoolTaskExecutor generationExecutor(ExecutorProperties properties, MeterRegistry registry) {
+        return createExecutor("generation", properties.getGeneration(), registry);
+    }
+
+    @Bean
+    public ThreadPoolTaskExecutor pollingExecutor(ExecutorProperties properties, MeterRegistry registry) {
+        return createExecutor("polling", properties.getPolling(), registry);
+    }
+
+    @Bean
+    public ThreadPoolTaskExecutor downloadExecutor(ExecutorProperties properties, MeterRegistry registry) {
+        return createExecutor("download", properties.getDownload(), registry);
+    }
+
+    @Bean
+    public ThreadPoolTaskExecutor assemblyExecutor(ExecutorProperties properties, MeterRegistry registry) {
+        return createExecutor("assembly", properties.getAssembly(), registry);
+    }
+
+    /**
+     * Parallel ffmpeg segment encodes, one process per core by default
+     */
+    @Bean
+    public ThreadPoolTaskExecutor encodeExecutor(ExecutorProperties properties, MeterRegistry registry) {
+        return createExecutor("encode", properties.getEncode(), registry);
+    }
+
+    /**
+     * Build a bounded pool and register its gauges
+     */
+    private ThreadPoolTaskExecutor createExecutor(String name, ExecutorProperties.Pool pool, MeterRegistry registry) {
+        int cores = Runtime.getRuntime().availableProcessors();
+        int coreSize = pool.getCoreSize() > 0 ? pool.getCoreSize() : cores;
+        int maxSize = Math.max(coreSize, pool.getMaxSize() > 0 ? pool.getMaxSize() : cores);
+
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setThreadNamePrefix("veo2-" + name + "-");
+        executor.setCorePoolSize(coreSize);
+        executor.setMaxPoolSize(maxSize);
+        executor.setQueueCapacity(pool.getQueueCapacity());
+        executor.setKeepAliveSeconds(pool.getKeepAliveSeconds());
+
+        Counter rejected = Counter.builder("veo2.executor.rejected")
+                .description("Tasks rejected because the pool and its queue were full")
+                .tag("pool", name)
+                .register(registry);
+
+        RejectedExecutionHandler policy = rejectionHandler(pool.getRejectionPolicy());
+        executor.setRejectedExecutionHandler((task, threadPool) -> {
+            rejected.increment();
+            log.warn("Executor '{}' saturated (active={}, queued={}), applying {} policy",
+                    name, threadPool.getActiveCount(), threadPool.getQueue().size(), pool.getRejectionPolicy());
+            policy.rejectedExecution(task, threadPool);
+        });
+
+        Gauge.builder("veo2.executor.queue.depth", executor, ThreadPoolTaskExecutor::getQueueSize)
+                .description("Tasks waiting in the pool queue")
+                .tag("pool", name)
+                .register(registry);
+        Gauge.builder("veo2.executor.active", executor, ThreadPoolTaskExecutor::getActiveCount)
+                .description("Threads currently running a task")
+                .tag("pool", name)
+                .register(registry);
+        Gauge.builder("veo2.executor.pool.size", executor, ThreadPoolTaskExecutor::getPoolSize)
+                .description("Threads currently in the pool")
+                .tag("pool", name)
+                .register(registry);
+
+        log.info("Executor '{}' configured: core={}, max={}, queue={}, rejection={}",
+                name, coreSize, maxSize, pool.getQueueCapacity(), pool.getRejectionPolicy());
+        return executor;
+    }
+
+    /**
+     * Every pool runs job work, so a full pool either fails the submit, which the caller
+     * reports on the job, or runs the task on the caller; dropping tasks silently would
+     * leave their jobs processing forever
+     */
+    private RejectedExecutionHandler rejectionHandler(String policy) {
+        switch (policy == null ? "abort" : policy.toLowerCase()) {
+            case "caller-runs":
+                return new ThreadPoolExecutor.CallerRunsPolicy();
+            case "abort":
+                return new ThreadPoolExecutor.AbortPolicy();
+            case "discard":
+            case "discard-oldest":
+                throw new IllegalArgumentException("Rejection policy " + policy
+                        + " would drop job tasks without failing their jobs, use abort or caller-runs");
+            default:
+                throw new IllegalArgumentException("Unknown rejection policy: " + policy);
+        }
+    }
+}
@@ -0,0 +1,68 @@
+package com.veo2.config;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+/**
+ * Sizing for the background worker pools
+ * Bound from veo2.executors.* in application.yml
+ */
+@ConfigurationProperties(prefix = "veo2.executors")
+public class ExecutorProperties {
+
+    private Pool generation = new Pool(6, 8, 20);
+    private Pool polling = new Pool(2, 4, 200);
+    private Pool download = new Pool(2, 4, 50);
+    private Pool assembly = new Pool(1, 2, 10);
+    private Pool encode = new Pool(0, 0, 200, "caller-runs");
+
+    public Pool getGeneration() { return generation; }
+    public void setGeneration(Pool generation) { this.generation = generation; }
+
+    public Pool getPolling() { return polling; }
+    public void setPolling(Pool polling) { this.polling = polling; }
+
+    public Pool getDownload() { return download; }
+    public void setDownload(Pool download) { this.download = download; }
+
+    public Pool getAssembly() { return assembly; }
+    public void setAssembly(Pool assembly) { this.assembly = assembly; }
+
+    public Pool getEncode() { return encode; }
+    public void setEncode(Pool encode) { this.encode = encode; }
+
+    public static class Pool {
+        private int coreSize; // 0 = one thread per CPU core
+        private int maxSize;
+        private int queueCapacity;
+        private int keepAliveSeconds = 60;
+        private String rejectionPolicy = "abort"; // abort, caller-runs
+
+        public Pool() {}
+
+        public Pool(int coreSize, int maxSize, int queueCapacity) {
+            this.coreSize = coreSize;
+            this.maxSize = maxSize;
+            this.queueCapacity = queueCapacity;
+        }
+
+        public Pool(int coreSize, int maxSize, int queueCapacity, String rejectionPolicy) {
+            this(coreSize, maxSize, queueCapacity);
+            this.rejectionPolicy = rejectionPolicy;
+        }
+
+        public int getCoreSize() { return coreSize; }
+        public void setCoreSize(int coreSize) { this.coreSize = coreSize; }
+
+        public int getMaxSize() { return maxSize; }
+        public void setMaxSize(int maxSize) { this.maxSize = maxSize; }
+
+        public int getQueueCapacity() { return queueCapacity; }
+        public void setQueueCapacity(int queueCapacity) { this.queueCapacity = queueCapacity; }
+
+        public int getKeepAliveSeconds() { return keepAliveSeconds; }
+        public void setKeepAliveSeconds(int keepAliveSeconds) { this.keepAliveSeconds = keepAliveSeconds; }
+
+        public String getRejectionPolicy() { return rejectionPolicy; }
+        public void setRejectionPolicy(String rejectionPolicy) { this.rejectionPolicy = rejectionPolicy; }
+    }
+}
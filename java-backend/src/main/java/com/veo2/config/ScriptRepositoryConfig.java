@@ -0,0 +1,42 @@
+package com.veo2.config;
+
+import com.veo2.repository.JsonScriptRepository;
+import com.veo2.repository.MVStoreScriptRepository;
+import com.veo2.repository.ScriptRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import java.io.IOException;
+
+/**
+ * Script storage backend, chosen by veo2.storage.backend
+ * "json" keeps a snapshot and journal file per script in the scripts directory; "mvstore"
+ * keeps every script in one embedded H2 MVStore file. ScriptMigration copies between them
+ */
+@Configuration
+public class ScriptRepositoryConfig {
+
+    private static final Logger log = LoggerFactory.getLogger(ScriptRepositoryConfig.class);
+
+    @Bean(destroyMethod = "close")
+    public ScriptRepository scriptRepository(@Value("${veo2.storage.backend:json}") String backend,
+                                             @Value("${veo2.storage.scripts-dir}") String scriptsDir,
+                                             @Value("${veo2.storage.journal.compact-after:200}") int compactAfter,
+                                             @Value("${veo2.storage.journal.fsync:true}") boolean fsync,
+                                             @Value("${veo2.storage.mvstore.file:./data/scripts.mv.db}") String mvstoreFile,
+                                             @Value("${veo2.storage.mvstore.cache-size-mb:16}") int cacheSizeMb)
+            throws IOException {
+        log.info("Script storage backend: {}", backend);
+        switch (backend.toLowerCase()) {
+            case "json":
+                return new JsonScriptRepository(scriptsDir, compactAfter, fsync);
+            case "mvstore":
+                return new MVStoreScriptRepository(mvstoreFile, cacheSizeMb);
+            default:
+                throw new IllegalArgumentException("Unknown veo2.storage.backend: " + backend);
+        }
+    }
+}
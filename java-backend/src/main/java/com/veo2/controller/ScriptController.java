@@ -1,6 +1,8 @@
 package com.veo2.controller;
 
 import com.veo2.model.Script;
+import com.veo2.model.ScriptSummary;
+import com.veo2.service.ScriptCatalog;
 import com.veo2.service.ScriptService;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -118,17 +120,26 @@ public class ScriptController {
     }
 
     /**
-     * Get all scripts
-     * GET /api/script/list
+     * List scripts from the catalog, one page at a time
+     * GET /api/script/list?sort=createdAt&order=desc&status=&q=&limit=50&cursor=
      */
     @GetMapping("/list")
-    public ResponseEntity<?> getAllScripts() {
+    public ResponseEntity<?> getAllScripts(@RequestParam(defaultValue = "createdAt") String sort,
+                                           @RequestParam(defaultValue = "desc") String order,
+                                           @RequestParam(required = false) String status,
+                                           @RequestParam(required = false) String q,
+                                           @RequestParam(defaultValue = "50") int limit,
+                                           @RequestParam(required = false) String cursor) {
         try {
-            String[] scriptIds = scriptService.getAllScriptIds();
+            ScriptCatalog.Page page = scriptService.listScripts(sort, !"asc".equalsIgnoreCase(order),
+                    status, q, cursor, limit);
 
             Map<String, Object> response = new HashMap<>();
-            response.put("scriptIds", scriptIds);
-            response.put("count", scriptIds.length);
+            response.put("scripts", page.getScripts());
+            response.put("scriptIds", page.getScripts().stream().map(ScriptSummary::getScriptId).toArray(String[]::new));
+            response.put("count", page.getScripts().size());
+            response.put("total", page.getTotal());
+            response.put("nextCursor", page.getNextCursor());
 
             return ResponseEntity.ok(response);
 
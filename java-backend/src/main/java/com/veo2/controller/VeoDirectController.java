@@ -33,6 +33,7 @@ public class VeoDirectController {
         try {
             String scriptId = (String) request.get("scriptId");
             Integer sceneNumber = (Integer) request.get("sceneNumber");
+            Number deadlineSeconds = (Number) request.get("deadlineSeconds");
 
             if (scriptId == null || sceneNumber == null) {
                 return ResponseEntity.badRequest().body(Map.of(
@@ -43,7 +44,8 @@ public class VeoDirectController {
 
             log.info("Starting VEO API video generation: script={}, scene={}", scriptId, sceneNumber);
 
-            VideoJob job = veoDirectService.generateVideoDirectAPI(scriptId, sceneNumber);
+            VideoJob job = veoDirectService.generateVideoDirectAPI(scriptId, sceneNumber,
+                    deadlineSeconds != null ? deadlineSeconds.longValue() : null);
 
             return ResponseEntity.ok(Map.of(
                     "success", true,
@@ -5,20 +5,22 @@ import com.veo2.model.Script;
 import com.veo2.model.VideoJob;
 import com.veo2.service.ScriptService;
 import com.veo2.service.VideoService;
+import com.veo2.util.FileStreamer;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
-import org.springframework.core.io.FileSystemResource;
-import org.springframework.core.io.Resource;
-import org.springframework.http.HttpHeaders;
 import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 
 import java.io.File;
+import java.io.IOException;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.regex.Pattern;
 
 @RestController
 @RequestMapping("/api/video")
@@ -27,12 +29,18 @@ public class VideoController {
 
     private static final Logger log = LoggerFactory.getLogger(VideoController.class);
 
+    // Path segments that cannot leave the video directory
+    private static final Pattern SAFE_NAME = Pattern.compile("[A-Za-z0-9_-][A-Za-z0-9._-]*");
+
     @Autowired
     private VideoService videoService;
 
     @Autowired
     private ScriptService scriptService;
 
+    @Autowired
+    private FileStreamer fileStreamer;
+
     /**
      * Generate videos for script
      * POST /api/video/generate
@@ -44,10 +52,12 @@ public class VideoController {
             @SuppressWarnings("unchecked")
             List<Integer> sceneNumbers = (List<Integer>) request.get("sceneNumbers");
             String quality = (String) request.getOrDefault("quality", "1080p");
+            Integer concurrency = (Integer) request.get("concurrency");
+            Boolean assembleIncrementally = (Boolean) request.get("assembleIncrementally");
 
-            log.info("Generating videos: scriptId={}, scenes={}", scriptId, sceneNumbers);
+            log.info("Generating videos: scriptId={}, scenes={}, concurrency={}", scriptId, sceneNumbers, concurrency);
 
-            VideoJob job = videoService.generateVideos(scriptId, sceneNumbers, quality);
+            VideoJob job = videoService.generateVideos(scriptId, sceneNumbers, quality, concurrency, assembleIncrementally);
 
             return ResponseEntity.ok(job);
 
@@ -117,26 +127,12 @@ public class VideoController {
      * GET /api/video/file/{scriptId}/{filename}
      */
     @GetMapping("/file/{scriptId}/{filename}")
-    public ResponseEntity<Resource> getVideoFile(@PathVariable String scriptId, @PathVariable String filename) {
-        try {
-            String filePath = videoService.getVideoFilePath(scriptId, filename);
-            File file = new File(filePath);
-
-            if (!file.exists()) {
-                return ResponseEntity.notFound().build();
-            }
-
-            Resource resource = new FileSystemResource(file);
+    public void getVideoFile(@PathVariable String scriptId, @PathVariable String filename,
+                             HttpServletRequest request, HttpServletResponse response) throws IOException {
+        String filePath = videoService.getVideoFilePath(scriptId, filename);
 
-            return ResponseEntity.ok()
-                    .contentType(MediaType.parseMediaType("video/mp4"))
-                    .header(HttpHeaders.CONTENT_DISPOSITION, "inline; filename=\"" + filename + "\"")
-                    .body(resource);
-
-        } catch (Exception e) {
-            log.error("Failed to get video file: {}", e.getMessage());
-            return ResponseEntity.badRequest().build();
-        }
+        fileStreamer.serve(request, response, new File(filePath), "video/mp4",
+                "inline; filename=\"" + filename + "\"", null);
     }
 
     /**
@@ -144,25 +140,36 @@ public class VideoController {
      * GET /api/video/thumbnail/{scriptId}/{filename}
      */
     @GetMapping("/thumbnail/{scriptId}/{filename}")
-    public ResponseEntity<Resource> getThumbnailFile(@PathVariable String scriptId, @PathVariable String filename) {
-        try {
-            String filePath = videoService.getVideoFilePath(scriptId, filename);
-            File file = new File(filePath);
-
-            if (!file.exists()) {
-                return ResponseEntity.notFound().build();
-            }
+    public void getThumbnailFile(@PathVariable String scriptId, @PathVariable String filename,
+                                 HttpServletRequest request, HttpServletResponse response) throws IOException {
+        String filePath = videoService.getVideoFilePath(scriptId, filename);
 
-            Resource resource = new FileSystemResource(file);
+        // Sprite sheets come with a .json index describing their layout
+        String contentType = filename.endsWith(".json") ? MediaType.APPLICATION_JSON_VALUE : MediaType.IMAGE_JPEG_VALUE;
 
-            return ResponseEntity.ok()
-                    .contentType(MediaType.IMAGE_JPEG)
-                    .body(resource);
+        fileStreamer.serve(request, response, new File(filePath), contentType, null, null);
+    }
 
-        } catch (Exception e) {
-            log.error("Failed to get thumbnail file: {}", e.getMessage());
-            return ResponseEntity.badRequest().build();
+    /**
+     * Serve an HLS playlist or segment
+     * GET /api/video/hls/{scriptId}/{name}/{filename}
+     */
+    @GetMapping("/hls/{scriptId}/{name}/{filename}")
+    public void getHlsFile(@PathVariable String scriptId, @PathVariable String name, @PathVariable String filename,
+                           HttpServletRequest request, HttpServletResponse response) throws IOException {
+        if (!SAFE_NAME.matcher(scriptId).matches() || !SAFE_NAME.matcher(name).matches()
+                || !SAFE_NAME.matcher(filename).matches()) {
+            response.sendError(HttpServletResponse.SC_BAD_REQUEST);
+            return;
         }
+
+        File file = new File(videoService.getHlsDirectory(scriptId, name), filename);
+
+        // Each packaging writes a new versioned directory, so a segment URL always names the same bytes
+        boolean playlist = filename.endsWith(".m3u8");
+        fileStreamer.serve(request, response, file,
+                playlist ? "application/vnd.apple.mpegurl" : "video/mp2t", null,
+                playlist ? "no-cache" : "public, max-age=31536000, immutable");
     }
 
     /**
@@ -170,26 +177,12 @@ public class VideoController {
      * GET /api/video/download/{scriptId}/{filename}
      */
     @GetMapping("/download/{scriptId}/{filename}")
-    public ResponseEntity<Resource> downloadVideoFile(@PathVariable String scriptId, @PathVariable String filename) {
-        try {
-            String filePath = videoService.getVideoFilePath(scriptId, filename);
-            File file = new File(filePath);
+    public void downloadVideoFile(@PathVariable String scriptId, @PathVariable String filename,
+                                  HttpServletRequest request, HttpServletResponse response) throws IOException {
+        String filePath = videoService.getVideoFilePath(scriptId, filename);
 
-            if (!file.exists()) {
-                return ResponseEntity.notFound().build();
-            }
-
-            Resource resource = new FileSystemResource(file);
-
-            return ResponseEntity.ok()
-                    .contentType(MediaType.parseMediaType("video/mp4"))
-                    .header(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=\"" + filename + "\"")
-                    .body(resource);
-
-        } catch (Exception e) {
-            log.error("Failed to download video file: {}", e.getMessage());
-            return ResponseEntity.badRequest().build();
-        }
+        fileStreamer.serve(request, response, new File(filePath), "video/mp4",
+                "attachment; filename=\"" + filename + "\"", null);
     }
 
     /**
@@ -0,0 +1,264 @@
+package com.veo2.integration;
+
+import java.io.FilterReader;
+import java.io.IOException;
+import java.io.Reader;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.Base64;
+
+/**
+ * Reader that pulls one base64 string field out of a JSON stream
+ * The field value is decoded chunk by chunk straight into a file, and the JSON passed on
+ * to the parser sees an empty string instead, so heap use stays at one small buffer
+ * no matter how large the encoded payload is
+ */
+public class Base64FieldExtractor extends FilterReader {
+
+    // Base64 chars decoded per write, must be a multiple of 4
+    private static final int CHUNK_CHARS = 64 * 1024;
+
+    private enum State { OUTSIDE, IN_STRING, AFTER_KEY, BEFORE_VALUE, DIVERT }
+
+    private final String fieldName;
+    private final Path target;
+
+    private State state = State.OUTSIDE;
+    private boolean escaped;
+    private final StringBuilder candidate = new StringBuilder();
+    private boolean candidateValid;
+
+    private FileChannel channel;
+    private boolean extracted;
+    private boolean discarding;
+    private final byte[] pending = new byte[CHUNK_CHARS];
+    private final byte[] decoded = new byte[CHUNK_CHARS / 4 * 3];
+    private int pendingCount;
+    private long bytesWritten;
+
+    /**
+     * @param in JSON source
+     * @param fieldName Name of the string field to extract
+     * @param target File the decoded bytes are written to, created on first match only
+     */
+    public Base64FieldExtractor(Reader in, String fieldName, Path target) {
+        super(in);
+        this.fieldName = fieldName;
+        this.target = target;
+    }
+
+    /**
+     * True if the field was found and written to the target file
+     */
+    public boolean isExtracted() {
+        return extracted;
+    }
+
+    /**
+     * Number of decoded bytes written to the target file
+     */
+    public long getBytesWritten() {
+        return bytesWritten;
+    }
+
+    @Override
+    public int read() throws IOException {
+        char[] single = new char[1];
+        int n = read(single, 0, 1);
+        return n == -1 ? -1 : single[0];
+    }
+
+    @Override
+    public int read(char[] cbuf, int off, int len) throws IOException {
+        while (true) {
+            int n = in.read(cbuf, off, len);
+            if (n == -1) {
+                if (state == State.DIVERT) {
+                    throw new IOException("JSON ended inside field " + fieldName);
+                }
+                return -1;
+            }
+
+            // Filter in place: diverted chars are dropped from the output
+            int out = off;
+            for (int i = off; i < off + n; i++) {
+                char c = cbuf[i];
+                if (process(c)) {
+                    cbuf[out++] = c;
+                }
+            }
+
+            int produced = out - off;
+            if (produced > 0) {
+                return produced;
+            }
+            // Everything in this read went to the file, keep reading instead of returning 0
+        }
+    }
+
+    @Override
+    public long skip(long n) throws IOException {
+        throw new IOException("skip is not supported");
+    }
+
+    @Override
+    public boolean markSupported() {
+        return false;
+    }
+
+    @Override
+    public void close() throws IOException {
+        try {
+            super.close();
+        } finally {
+            closeChannel();
+        }
+    }
+
+    /**
+     * Advance the state machine by one char
+     * @return true if the char should be passed on to the JSON parser
+     */
+    private boolean process(char c) throws IOException {
+        switch (state) {
+            case OUTSIDE:
+                if (c == '"') {
+                    state = State.IN_STRING;
+                    escaped = false;
+                    candidate.setLength(0);
+                    candidateValid = true;
+                }
+                return true;
+
+            case IN_STRING:
+                if (escaped) {
+                    escaped = false;
+                    candidateValid = false;
+                } else if (c == '\\') {
+                    escaped = true;
+                } else if (c == '"') {
+                    boolean matched = candidateValid && fieldName.contentEquals(candidate);
+                    state = matched ? State.AFTER_KEY : State.OUTSIDE;
+                } else if (candidateValid) {
+                    if (candidate.length() < fieldName.length()) {
+                        candidate.append(c);
+                    } else {
+                        candidateValid = false;
+                    }
+                }
+                return true;
+
+            case AFTER_KEY:
+                if (c == ':') {
+                    state = State.BEFORE_VALUE;
+                } else if (!Character.isWhitespace(c)) {
+                    // The match was a value, not a key
+                    state = State.OUTSIDE;
+                    return process(c);
+                }
+                return true;
+
+            case BEFORE_VALUE:
+                if (c == '"') {
+                    startValue();
+                    state = State.DIVERT;
+                } else if (!Character.isWhitespace(c)) {
+                    // null or another non-string value
+                    state = State.OUTSIDE;
+                    return process(c);
+                }
+                return true;
+
+            case DIVERT:
+                if (escaped) {
+                    escaped = false;
+                    if (c == '/') {
+                        append((byte) '/');
+                    } else if (c != 'n' && c != 'r' && c != 't') {
+                        throw new IOException("Unexpected escape \\" + c + " in base64 field " + fieldName);
+                    }
+                    return false;
+                }
+                if (c == '\\') {
+                    escaped = true;
+                    return false;
+                }
+                if (c == '"') {
+                    finishValue();
+                    state = State.OUTSIDE;
+                    return true;
+                }
+                append((byte) c);
+                return false;
+
+            default:
+                return true;
+        }
+    }
+
+    private void startValue() throws IOException {
+        escaped = false;
+        pendingCount = 0;
+        if (extracted) {
+            // Only the first occurrence is kept
+            discarding = true;
+            return;
+        }
+        discarding = false;
+        channel = FileChannel.open(target, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                StandardOpenOption.TRUNCATE_EXISTING);
+    }
+
+    private void append(byte b) throws IOException {
+        if (discarding) {
+            return;
+        }
+        pending[pendingCount++] = b;
+        if (pendingCount == CHUNK_CHARS) {
+            try {
+                int n = Base64.getDecoder().decode(pending, decoded);
+                write(decoded, n);
+            } catch (IllegalArgumentException e) {
+                throw new IOException("Invalid base64 in field " + fieldName, e);
+            }
+            pendingCount = 0;
+        }
+    }
+
+    private void finishValue() throws IOException {
+        if (discarding) {
+            discarding = false;
+            return;
+        }
+        try {
+            if (pendingCount > 0) {
+                byte[] tail = Base64.getDecoder().decode(Arrays.copyOf(pending, pendingCount));
+                write(tail, tail.length);
+                pendingCount = 0;
+            }
+            extracted = true;
+        } catch (IllegalArgumentException e) {
+            throw new IOException("Invalid base64 in field " + fieldName, e);
+        } finally {
+            closeChannel();
+        }
+    }
+
+    private void write(byte[] bytes, int length) throws IOException {
+        ByteBuffer buffer = ByteBuffer.wrap(bytes, 0, length);
+        while (buffer.hasRemaining()) {
+            bytesWritten += channel.write(buffer);
+        }
+    }
+
+    private void closeChannel() throws IOException {
+        if (channel != null) {
+            FileChannel toClose = channel;
+            channel = null;
+            toClose.close();
+        }
+    }
+}
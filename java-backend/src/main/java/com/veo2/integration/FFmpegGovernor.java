@@ -0,0 +1,173 @@
+package com.veo2.integration;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Limits how many ffmpeg/ffprobe processes run at once across the whole app
+ * Waiting calls are admitted by priority class, then in arrival order, so short
+ * interactive work (thumbnails, probes) overtakes queued bulk encodes
+ */
+@Component
+public class FFmpegGovernor {
+
+    private static final Logger log = LoggerFactory.getLogger(FFmpegGovernor.class);
+
+    public enum Priority {
+        INTERACTIVE, // thumbnails, probes: someone is waiting on the result
+        BULK         // assembly, conversion, segment encodes
+    }
+
+    @FunctionalInterface
+    public interface ProcessCall<T> {
+        T call() throws IOException;
+    }
+
+    private final int slots;
+    private final int cores;
+    private final ReentrantLock lock = new ReentrantLock();
+    private final Condition slotFreed = lock.newCondition();
+    private final PriorityQueue<Waiter> waiting = new PriorityQueue<>();
+    private int running;
+    private long arrivals;
+
+    private final Map<Priority, AtomicInteger> waitingByClass = new EnumMap<>(Priority.class);
+    private final Map<Priority, AtomicInteger> runningByClass = new EnumMap<>(Priority.class);
+    private final Map<Priority, Timer> queueWaitTimers = new EnumMap<>(Priority.class);
+    private final Map<Priority, Timer> runTimers = new EnumMap<>(Priority.class);
+
+    public FFmpegGovernor(@Value("${veo2.ffmpeg.governor.slots:0}") int configuredSlots, MeterRegistry registry) {
+        this.cores = Runtime.getRuntime().availableProcessors();
+        this.slots = configuredSlots > 0 ? configuredSlots : cores;
+
+        for (Priority priority : Priority.values()) {
+            String name = priority.name().toLowerCase();
+            waitingByClass.put(priority, new AtomicInteger());
+            runningByClass.put(priority, new AtomicInteger());
+            queueWaitTimers.put(priority, Timer.builder("veo2.ffmpeg.queue.wait")
+                    .description("Time an ffmpeg/ffprobe call waited for a process slot")
+                    .tag("class", name)
+                    .register(registry));
+            runTimers.put(priority, Timer.builder("veo2.ffmpeg.run.time")
+                    .description("Time an ffmpeg/ffprobe process ran")
+                    .tag("class", name)
+                    .register(registry));
+            Gauge.builder("veo2.ffmpeg.waiting", waitingByClass.get(priority), AtomicInteger::get)
+                    .description("Calls waiting for a process slot")
+                    .tag("class", name)
+                    .register(registry);
+            Gauge.builder("veo2.ffmpeg.running", runningByClass.get(priority), AtomicInteger::get)
+                    .description("Processes currently running")
+                    .tag("class", name)
+                    .register(registry);
+        }
+
+        log.info("FFmpeg governor configured with {} process slots", slots);
+    }
+
+    /**
+     * Run one ffmpeg/ffprobe invocation once a slot is free
+     * Must not be nested: the call itself should launch exactly one process
+     */
+    public <T> T run(Priority priority, ProcessCall<T> call) throws IOException {
+        long queuedAt = System.nanoTime();
+        acquire(priority);
+        long startedAt = System.nanoTime();
+        queueWaitTimers.get(priority).record(startedAt - queuedAt, TimeUnit.NANOSECONDS);
+
+        runningByClass.get(priority).incrementAndGet();
+        try {
+            return call.call();
+        } finally {
+            runningByClass.get(priority).decrementAndGet();
+            runTimers.get(priority).record(System.nanoTime() - startedAt, TimeUnit.NANOSECONDS);
+            release();
+        }
+    }
+
+    public int getSlots() {
+        return slots;
+    }
+
+    /**
+     * Cores per process currently running, the caller's own included when called from a run
+     * ffmpeg otherwise starts a thread per core in every process
+     */
+    public int coreShare() {
+        lock.lock();
+        try {
+            return Math.max(1, cores / Math.max(1, running));
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public int getCores() {
+        return cores;
+    }
+
+    private void acquire(Priority priority) throws IOException {
+        lock.lock();
+        try {
+            Waiter self = new Waiter(priority, arrivals++);
+            waiting.add(self);
+            waitingByClass.get(priority).incrementAndGet();
+            try {
+                while (running >= slots || waiting.peek() != self) {
+                    slotFreed.await();
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new IOException("Interrupted while waiting for an ffmpeg slot", e);
+            } finally {
+                waiting.remove(self);
+                waitingByClass.get(priority).decrementAndGet();
+                // The next waiter may now be at the head
+                slotFreed.signalAll();
+            }
+            running++;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private void release() {
+        lock.lock();
+        try {
+            running--;
+            slotFreed.signalAll();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private static class Waiter implements Comparable<Waiter> {
+        final Priority priority;
+        final long arrival;
+
+        Waiter(Priority priority, long arrival) {
+            this.priority = priority;
+            this.arrival = arrival;
+        }
+
+        @Override
+        public int compareTo(Waiter other) {
+            int byPriority = priority.compareTo(other.priority);
+            return byPriority != 0 ? byPriority : Long.compare(arrival, other.arrival);
+        }
+    }
+}
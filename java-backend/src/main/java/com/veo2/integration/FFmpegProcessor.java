@@ -1,34 +1,118 @@
 package com.veo2.integration;
 
+import com.google.gson.Gson;
 import com.veo2.model.Scene;
+import com.veo2.model.SpriteSheet;
 import net.bramp.ffmpeg.FFmpeg;
-import net.bramp.ffmpeg.FFmpegExecutor;
 import net.bramp.ffmpeg.FFprobe;
+import net.bramp.ffmpeg.RunProcessFunction;
 import net.bramp.ffmpeg.builder.FFmpegBuilder;
 import net.bramp.ffmpeg.probe.FFmpegProbeResult;
+import net.bramp.ffmpeg.probe.FFmpegStream;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
 import org.springframework.stereotype.Component;
 
+import java.io.BufferedReader;
 import java.io.File;
 import java.io.IOException;
+import java.io.InputStreamReader;
+import java.nio.channels.FileChannel;
 import java.nio.file.Files;
+import java.nio.file.Path;
 import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.attribute.BasicFileAttributes;
 import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletionService;
+import java.util.concurrent.ExecutorCompletionService;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.stream.Stream;
 
 @Component
 public class FFmpegProcessor {
 
     private static final Logger log = LoggerFactory.getLogger(FFmpegProcessor.class);
 
+    private static final double KEYFRAME_EPSILON = 0.001;
+    private static final int SPRITE_MAX_COLUMNS = 10;
+
+    public static final String HLS_PLAYLIST = "index.m3u8";
+
+    // Encoders for the codecs ffprobe reports, used to re-encode to a clip's own format;
+    // h264 uses the configured video codec
+    private static final Map<String, String> VIDEO_ENCODERS = Map.of(
+            "hevc", "libx265",
+            "vp9", "libvpx-vp9",
+            "av1", "libsvtav1",
+            "mpeg4", "mpeg4",
+            "mpeg2video", "mpeg2video");
+    private static final Map<String, String> AUDIO_ENCODERS = Map.of(
+            "mp3", "libmp3lame",
+            "opus", "libopus",
+            "vorbis", "libvorbis");
+    // Encoders that take a constant rate factor
+    private static final Set<String> CRF_ENCODERS = Set.of(
+            "libx264", "libx265", "libvpx-vp9", "libsvtav1", "libaom-av1",
+            "h264_videotoolbox", "hevc_videotoolbox");
+
     private FFmpeg ffmpeg;
     private FFprobe ffprobe;
 
+    @Value("${veo2.ffmpeg.video-codec:libx264}")
+    private String videoCodec;
+
+    @Value("${veo2.ffmpeg.crf:20}")
+    private int crf;
+
+    @Value("${veo2.ffmpeg.segmented-encoding:true}")
+    private boolean segmentedEncoding;
+
+    @Value("${veo2.ffmpeg.probe-cache-size:512}")
+    private int probeCacheSize;
+
+    @Value("${veo2.ffmpeg.hls-segment-seconds:4}")
+    private int hlsSegmentSeconds;
+
+    // Least recently used probe results, keyed by absolute path
+    private final Map<String, ProbeEntry> probeCache = new LinkedHashMap<>(16, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<String, ProbeEntry> eldest) {
+            return size() > probeCacheSize;
+        }
+    };
+
+    @Autowired
+    @Qualifier("encodeExecutor")
+    private ThreadPoolTaskExecutor encodeExecutor;
+
+    @Autowired
+    private FFmpegGovernor governor;
+
+    // Progress of the assembly running on this thread, handed on to its parallel encodes
+    private final ThreadLocal<FFmpegProgress> activeProgress = new ThreadLocal<>();
+    // ffmpeg processes of the parallel encode running on this thread, killed if it is cancelled
+    private final ThreadLocal<EncodeProcesses> activeProcesses = new ThreadLocal<>();
+    private final RunProcessFunction processFunction = new RunProcessFunction();
+
     public FFmpegProcessor() {
         try {
             // Try to find FFmpeg in system PATH
-            this.ffmpeg = new FFmpeg("ffmpeg");
+            this.ffmpeg = new FFmpeg("ffmpeg", this::startProcess);
             this.ffprobe = new FFprobe("ffprobe");
             log.info("FFmpeg initialized successfully");
         } catch (IOException e) {
@@ -43,6 +127,24 @@ public class FFmpegProcessor {
      * Assemble multiple video files into one
      */
     public String assembleVideos(List<String> videoFiles, String outputPath, boolean addTransitions, double transitionDuration) throws IOException {
+        return assembleVideos(videoFiles, outputPath, addTransitions, transitionDuration, null);
+    }
+
+    /**
+     * Assemble multiple video files into one, reporting progress from every ffmpeg process it runs
+     * @param progress Receives the planned work and -progress reports, or null
+     */
+    public String assembleVideos(List<String> videoFiles, String outputPath, boolean addTransitions,
+                                 double transitionDuration, FFmpegProgress progress) throws IOException {
+        activeProgress.set(progress);
+        try {
+            return assemble(videoFiles, outputPath, addTransitions, transitionDuration);
+        } finally {
+            activeProgress.remove();
+        }
+    }
+
+    private String assemble(List<String> videoFiles, String outputPath, boolean addTransitions, double transitionDuration) throws IOException {
         log.info("Assembling {} videos into {}", videoFiles.size(), outputPath);
 
         if (videoFiles.isEmpty()) {
@@ -61,17 +163,107 @@ public class FFmpegProcessor {
 
     /**
      * Simple concatenation without transitions
+     * Clips whose streams match are joined by stream copy; only clips that differ from
+     * the majority format are re-encoded to it first
      */
     private String assembleSimple(List<String> videoFiles, String outputPath) throws IOException {
-        // Create concat file
-        String concatFilePath = outputPath.replace(".mp4", "_concat.txt");
-        List<String> concatLines = new ArrayList<>();
+        List<ClipFormat> formats = new ArrayList<>();
+        try {
+            for (String videoFile : videoFiles) {
+                formats.add(ClipFormat.of(probeResult(videoFile)));
+            }
+        } catch (IOException | RuntimeException e) {
+            log.warn("Could not probe inputs ({}), re-encoding all clips", e.getMessage());
+            return assembleReencode(videoFiles, outputPath);
+        }
 
-        for (String videoFile : videoFiles) {
-            concatLines.add("file '" + new File(videoFile).getAbsolutePath() + "'");
+        ClipFormat reference = mostCommon(formats);
+        if (reference.width == 0) {
+            log.warn("Inputs have no video stream, re-encoding all clips");
+            return assembleReencode(videoFiles, outputPath);
+        }
+
+        long mismatched = formats.stream().filter(format -> !format.equals(reference)).count();
+        // Mismatched sets write the timeline twice: once as MPEG-TS parts, once joined
+        plan(timelineSeconds(videoFiles) * (mismatched == 0 ? 1 : 2));
+        Path workDir = Files.createTempDirectory(Paths.get(outputPath).toAbsolutePath().getParent(), ".assemble-");
+        try {
+            List<String> parts;
+            if (mismatched == 0) {
+                parts = videoFiles;
+            } else {
+                // MPEG-TS carries codec parameters in-band, so re-encoded clips join cleanly with copied ones
+                log.info("{} of {} clips differ from {}, normalizing them", mismatched, videoFiles.size(), reference);
+                parts = new ArrayList<>();
+                List<EncodeTask> tasks = new ArrayList<>();
+                for (int i = 0; i < videoFiles.size(); i++) {
+                    String input = videoFiles.get(i);
+                    String part = workDir.resolve(String.format("part_%03d.ts", i)).toString();
+                    ClipFormat format = formats.get(i);
+                    if (format.equals(reference)) {
+                        tasks.add(threads -> remuxToTransportStream(input, part));
+                    } else {
+                        tasks.add(threads -> normalizeClip(input, part, reference, format.hasAudio, threads));
+                    }
+                    parts.add(part);
+                }
+                runAll(tasks);
+            }
+
+            concatCopy(parts, outputPath, workDir);
+            log.info("Videos assembled by stream copy ({} re-encoded): {}", mismatched, outputPath);
+            return outputPath;
+
+        } catch (IOException | RuntimeException e) {
+            log.warn("Stream copy assembly failed ({}), re-encoding all clips", e.getMessage());
+            return assembleReencode(videoFiles, outputPath);
+        } finally {
+            deleteRecursively(workDir);
+        }
+    }
+
+    /**
+     * Concatenation that re-encodes every clip
+     * With segmented encoding each clip is encoded by its own ffmpeg process in parallel
+     * and the results are joined by stream copy
+     */
+    private String assembleReencode(List<String> videoFiles, String outputPath) throws IOException {
+        if (segmentedEncoding && videoFiles.size() > 1) {
+            Path workDir = Files.createTempDirectory(Paths.get(outputPath).toAbsolutePath().getParent(), ".encode-");
+            try {
+                List<ClipFormat> formats = new ArrayList<>();
+                for (String videoFile : videoFiles) {
+                    formats.add(ClipFormat.of(probeResult(videoFile)));
+                }
+                ClipFormat reference = mostCommon(formats);
+                if (reference.width > 0) {
+                    plan(timelineSeconds(videoFiles) * 2);
+                    List<String> parts = new ArrayList<>();
+                    List<EncodeTask> tasks = new ArrayList<>();
+                    for (int i = 0; i < videoFiles.size(); i++) {
+                        String input = videoFiles.get(i);
+                        String part = workDir.resolve(String.format("segment_%03d.ts", i)).toString();
+                        boolean hasAudio = formats.get(i).hasAudio;
+                        tasks.add(threads -> normalizeClip(input, part, reference, hasAudio, threads));
+                        parts.add(part);
+                    }
+                    runAll(tasks);
+                    concatCopy(parts, outputPath, workDir);
+                    log.info("Videos assembled by {} parallel segment encodes: {}", parts.size(), outputPath);
+                    return outputPath;
+                }
+            } catch (IOException | RuntimeException e) {
+                log.warn("Segmented encode failed ({}), encoding in a single process", e.getMessage());
+            } finally {
+                deleteRecursively(workDir);
+            }
         }
 
-        Files.write(Paths.get(concatFilePath), concatLines);
+        plan(timelineSeconds(videoFiles));
+
+        // Create concat file
+        String concatFilePath = outputPath.replace(".mp4", "_concat.txt");
+        writeConcatList(videoFiles, Paths.get(concatFilePath));
 
         try {
             // Build FFmpeg command
@@ -80,13 +272,12 @@ public class FFmpegProcessor {
                     .addExtraArgs("-safe", "0")
                     .setInput(concatFilePath)
                     .addOutput(outputPath)
-                    .setVideoCodec("libx264")
+                    .setVideoCodec(videoCodec)
                     .setAudioCodec("aac")
                     .setStrict(FFmpegBuilder.Strict.EXPERIMENTAL)
                     .done();
 
-            FFmpegExecutor executor = new FFmpegExecutor(ffmpeg, ffprobe);
-            executor.createJob(builder).run();
+            runJob(FFmpegGovernor.Priority.BULK, builder);
 
             log.info("Videos assembled successfully: {}", outputPath);
             return outputPath;
@@ -97,85 +288,709 @@ public class FFmpegProcessor {
         }
     }
 
+    /**
+     * Join clips with identical stream parameters without re-encoding
+     */
+    private void concatCopy(List<String> parts, String outputPath, Path workDir) throws IOException {
+        Path concatFile = workDir.resolve("concat.txt");
+        writeConcatList(parts, concatFile);
+
+        runFfmpeg(List.of(
+                "-y", "-v", "error",
+                "-f", "concat", "-safe", "0", "-i", concatFile.toString(),
+                "-map", "0", "-c", "copy",
+                "-movflags", "+faststart",
+                outputPath
+        ));
+    }
+
+    /**
+     * Turn a clip into an MPEG-TS segment in the format of a reference clip, for appending
+     * to a running assembly; clips already in that format are rewrapped by stream copy
+     */
+    public void prepareSegment(String inputPath, String referencePath, String segmentPath) throws IOException {
+        ClipFormat format = ClipFormat.of(probeResult(inputPath));
+        ClipFormat reference = ClipFormat.of(probeResult(referencePath));
+        if (reference.width == 0) {
+            throw new IOException("Reference clip has no video stream: " + referencePath);
+        }
+
+        if (format.equals(reference)) {
+            remuxToTransportStream(inputPath, segmentPath);
+        } else {
+            log.info("Clip {} differs from {}, normalizing it", inputPath, reference);
+            normalizeClip(inputPath, segmentPath, reference, format.hasAudio, 0);
+        }
+    }
+
+    /**
+     * Append a segment to a growing MPEG-TS file, with its timestamps shifted to start at an offset
+     * Transport streams can be joined byte for byte, so the running file stays playable as it grows
+     * @param offset Where the segment starts on the running file's timeline
+     * @return Where the next segment starts: the end of the segment's last packet, which unlike
+     * the container duration does not drift with rounding or audio priming
+     */
+    public double appendSegment(String segmentPath, String runningPath, double offset) throws IOException {
+        Path shifted = Paths.get(runningPath + ".part");
+        try {
+            runFfmpeg(List.of(
+                    "-y", "-v", "error",
+                    "-i", segmentPath,
+                    "-map", "0", "-c", "copy",
+                    "-output_ts_offset", seconds(offset),
+                    "-f", "mpegts", shifted.toString()
+            ));
+
+            try (FileChannel source = FileChannel.open(shifted, StandardOpenOption.READ);
+                 FileChannel target = FileChannel.open(Paths.get(runningPath),
+                         StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.APPEND)) {
+                long position = 0;
+                long size = source.size();
+                while (position < size) {
+                    position += source.transferTo(position, size - position, target);
+                }
+            }
+        } finally {
+            Files.deleteIfExists(shifted);
+        }
+
+        double[] span = governor.run(FFmpegGovernor.Priority.INTERACTIVE, () -> readPacketSpan(segmentPath));
+        return offset + span[1] - span[0];
+    }
+
+    /**
+     * First packet's presentation time and the last packet's end time across all streams
+     */
+    private double[] readPacketSpan(String videoPath) throws IOException {
+        Process process = new ProcessBuilder(ffprobe.getPath(), "-v", "error",
+                "-show_entries", "packet=pts_time,duration_time",
+                "-of", "csv=p=0", videoPath)
+                .redirectError(ProcessBuilder.Redirect.DISCARD)
+                .start();
+
+        double first = Double.MAX_VALUE;
+        double end = -Double.MAX_VALUE;
+        try (BufferedReader reader = new BufferedReader(new InputStreamReader(process.getInputStream()))) {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                String[] fields = line.split(",");
+                if (fields.length == 0 || fields[0].isEmpty() || "N/A".equals(fields[0])) {
+                    continue;
+                }
+                double pts = Double.parseDouble(fields[0]);
+                double duration = fields.length > 1 && !fields[1].isEmpty() && !"N/A".equals(fields[1])
+                        ? Double.parseDouble(fields[1]) : 0;
+                first = Math.min(first, pts);
+                end = Math.max(end, pts + duration);
+            }
+        }
+        try {
+            if (process.waitFor() != 0 || end < first) {
+                throw new IOException("ffprobe failed to list packets of " + videoPath);
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Interrupted while probing " + videoPath, e);
+        }
+        return new double[]{first, end};
+    }
+
+    /**
+     * Remux a running MPEG-TS assembly into the final MP4 by stream copy
+     */
+    public String finishAppended(String runningPath, String outputPath) throws IOException {
+        runFfmpeg(List.of(
+                "-y", "-v", "error",
+                "-i", runningPath,
+                "-map", "0", "-c", "copy",
+                "-movflags", "+faststart",
+                outputPath
+        ));
+        log.info("Running assembly finished: {}", outputPath);
+        return outputPath;
+    }
+
+    /**
+     * Rewrap a clip as MPEG-TS without touching its streams
+     */
+    private void remuxToTransportStream(String inputPath, String outputPath) throws IOException {
+        runFfmpeg(List.of(
+                "-y", "-v", "error",
+                "-i", inputPath,
+                "-map", "0:v:0", "-map", "0:a:0?", "-c", "copy",
+                "-f", "mpegts", outputPath
+        ));
+    }
+
+    /**
+     * Re-encode a clip to the reference format, as MPEG-TS
+     * A clip without audio gets a silent track when the reference has one
+     */
+    private void normalizeClip(String inputPath, String outputPath, ClipFormat reference, boolean hasAudio,
+                               int threads) throws IOException {
+        List<String> args = new ArrayList<>(List.of("-y", "-v", "error", "-i", inputPath));
+        boolean addSilence = reference.hasAudio && !hasAudio;
+        if (addSilence) {
+            args.addAll(List.of("-f", "lavfi", "-i", String.format("anullsrc=channel_layout=%s:sample_rate=%d",
+                    reference.channels == 1 ? "mono" : "stereo", reference.sampleRate)));
+        }
+
+        args.addAll(List.of("-map", "0:v:0"));
+        args.addAll(List.of("-vf", String.format(
+                "scale=%d:%d:force_original_aspect_ratio=decrease,pad=%d:%d:(ow-iw)/2:(oh-ih)/2,setsar=1,fps=%s,format=%s",
+                reference.width, reference.height, reference.width, reference.height,
+                reference.frameRate, reference.pixelFormat)));
+        addVideoEncoder(args, reference.videoCodec);
+        addThreads(args, threads);
+
+        if (reference.hasAudio) {
+            args.addAll(List.of("-map", addSilence ? "1:a:0" : "0:a:0",
+                    "-c:a", audioEncoder(reference.audioCodec),
+                    "-ar", String.valueOf(reference.sampleRate),
+                    "-ac", String.valueOf(reference.channels)));
+            if (addSilence) {
+                args.add("-shortest");
+            }
+        } else {
+            args.add("-an");
+        }
+
+        args.addAll(List.of("-f", "mpegts", outputPath));
+        runFfmpeg(args);
+    }
+
+    /**
+     * Encode video to the codec ffprobe reported for the reference clip, with the configured
+     * quality where the encoder takes a CRF
+     */
+    private void addVideoEncoder(List<String> args, String codecName) {
+        String encoder = "h264".equals(codecName) ? videoCodec : VIDEO_ENCODERS.get(codecName);
+        if (encoder == null) {
+            log.warn("No encoder known for {}, re-encoding with {}", codecName, videoCodec);
+            encoder = videoCodec;
+        }
+        args.addAll(List.of("-c:v", encoder));
+        if (CRF_ENCODERS.contains(encoder)) {
+            args.addAll(List.of("-crf", String.valueOf(crf)));
+            if ("libvpx-vp9".equals(encoder)) {
+                // Constant quality; without it libvpx treats the CRF as a cap over a default bitrate
+                args.addAll(List.of("-b:v", "0"));
+            }
+        }
+    }
+
+    private static String audioEncoder(String codecName) {
+        return AUDIO_ENCODERS.getOrDefault(codecName, codecName);
+    }
+
+    private void writeConcatList(List<String> files, Path concatFile) throws IOException {
+        List<String> concatLines = new ArrayList<>();
+        for (String file : files) {
+            String path = new File(file).getAbsolutePath().replace("'", "'\\''");
+            concatLines.add("file '" + path + "'");
+        }
+        Files.write(concatFile, concatLines);
+    }
+
+    private ClipFormat mostCommon(List<ClipFormat> formats) {
+        Map<ClipFormat, Integer> counts = new LinkedHashMap<>();
+        for (ClipFormat format : formats) {
+            counts.merge(format, 1, Integer::sum);
+        }
+        return Collections.max(counts.entrySet(), Map.Entry.comparingByValue()).getKey();
+    }
+
+    private void deleteRecursively(Path dir) {
+        try (Stream<Path> paths = Files.walk(dir)) {
+            paths.sorted(Comparator.reverseOrder()).forEach(path -> path.toFile().delete());
+        } catch (IOException e) {
+            log.warn("Failed to clean up {}: {}", dir, e.getMessage());
+        }
+    }
+
     /**
      * Concatenation with crossfade transitions
+     * Only the GOPs around each cut are re-encoded with xfade/acrossfade; the middle of every
+     * clip, between its first keyframe after the fade-in and last keyframe before the fade-out,
+     * is stream-copied
      */
     private String assembleWithTransitions(List<String> videoFiles, String outputPath, double transitionDuration) throws IOException {
         log.info("Assembling videos with {}s crossfade transitions", transitionDuration);
 
-        // For complex transitions, we need to use filter_complex
-        // This is a simplified version - full implementation would be more complex
-        StringBuilder filterComplex = new StringBuilder();
+        List<ClipFormat> formats = new ArrayList<>();
+        List<Double> durations = new ArrayList<>();
+        List<List<Double>> keyframes = new ArrayList<>();
+        try {
+            for (String videoFile : videoFiles) {
+                FFmpegProbeResult probe = probeResult(videoFile);
+                formats.add(ClipFormat.of(probe));
+                durations.add(probe.getFormat().duration);
+                keyframes.add(probeKeyframes(videoFile));
+            }
+        } catch (IOException | RuntimeException e) {
+            log.warn("Could not probe inputs ({}), crossfading with a full re-encode", e.getMessage());
+            return assembleWithFilterGraph(videoFiles, outputPath, transitionDuration, durations);
+        }
+
+        double fade = clampTransition(transitionDuration, durations);
+        ClipFormat reference = formats.get(0);
+        if (reference.width == 0 || formats.stream().anyMatch(format -> !format.equals(reference))) {
+            log.info("Clip formats differ, crossfading with a full re-encode");
+            return assembleWithFilterGraph(videoFiles, outputPath, fade, durations);
+        }
 
-        for (int i = 0; i < videoFiles.size() - 1; i++) {
-            if (i == 0) {
-                filterComplex.append(String.format(
-                        "[0:v][1:v]xfade=transition=fade:duration=%.1f:offset=7.5[v01];",
-                        transitionDuration
-                ));
-            } else {
-                filterComplex.append(String.format(
-                        "[v%02d][%d:v]xfade=transition=fade:duration=%.1f:offset=%.1f[v%02d];",
-                        i - 1, i + 1, transitionDuration, (i + 1) * 8 - transitionDuration / 2, i
-                ));
+        // Copy window of each clip: [copyStart, copyEnd), both on keyframes, outside the fades
+        int count = videoFiles.size();
+        double[] copyStart = new double[count];
+        double[] copyEnd = new double[count];
+        for (int i = 0; i < count; i++) {
+            double duration = durations.get(i);
+            copyStart[i] = i == 0 ? 0 : firstKeyframeAtOrAfter(keyframes.get(i), fade);
+            copyEnd[i] = i == count - 1 ? duration : lastKeyframeAtOrBefore(keyframes.get(i), duration - fade);
+            if (Double.isNaN(copyStart[i]) || Double.isNaN(copyEnd[i]) || copyStart[i] >= copyEnd[i]) {
+                log.info("Clip {} has no keyframe-aligned middle, crossfading with a full re-encode", videoFiles.get(i));
+                return assembleWithFilterGraph(videoFiles, outputPath, fade, durations);
+            }
+        }
+
+        // Middles and transitions cover the output once, then the join writes it again
+        plan(2 * (durations.stream().mapToDouble(Double::doubleValue).sum() - (count - 1) * fade));
+        Path workDir = Files.createTempDirectory(Paths.get(outputPath).toAbsolutePath().getParent(), ".xfade-");
+        try {
+            List<String> parts = new ArrayList<>();
+            List<EncodeTask> tasks = new ArrayList<>();
+            for (int i = 0; i < count; i++) {
+                int clip = i;
+                String middle = workDir.resolve(String.format("middle_%03d.ts", i)).toString();
+                tasks.add(threads -> copySegment(videoFiles.get(clip), middle, copyStart[clip],
+                        clip == count - 1 ? -1 : copyEnd[clip] - copyStart[clip]));
+                parts.add(middle);
+
+                if (i < count - 1) {
+                    String transition = workDir.resolve(String.format("xfade_%03d.ts", i)).toString();
+                    tasks.add(threads -> encodeTransition(videoFiles.get(clip), copyEnd[clip], durations.get(clip),
+                            videoFiles.get(clip + 1), copyStart[clip + 1], fade, reference, transition, threads));
+                    parts.add(transition);
+                }
+            }
+            runAll(tasks);
+
+            concatCopy(parts, outputPath, workDir);
+            log.info("Videos assembled with {} crossfades: {}", count - 1, outputPath);
+            return outputPath;
+
+        } catch (IOException | RuntimeException e) {
+            log.warn("Partial crossfade failed ({}), crossfading with a full re-encode", e.getMessage());
+            return assembleWithFilterGraph(videoFiles, outputPath, fade, durations);
+        } finally {
+            deleteRecursively(workDir);
+        }
+    }
+
+    /**
+     * Crossfade every clip in one filter graph, normalizing each input first
+     */
+    private String assembleWithFilterGraph(List<String> videoFiles, String outputPath, double transitionDuration,
+                                           List<Double> knownDurations) throws IOException {
+        List<Double> durations = new ArrayList<>(knownDurations);
+        List<ClipFormat> formats = new ArrayList<>();
+        for (int i = 0; i < videoFiles.size(); i++) {
+            FFmpegProbeResult probe = probeResult(videoFiles.get(i));
+            formats.add(ClipFormat.of(probe));
+            if (i >= durations.size()) {
+                durations.add(probe.getFormat().duration);
+            }
+        }
+        double fade = clampTransition(transitionDuration, durations);
+        ClipFormat reference = mostCommon(formats);
+        plan(durations.stream().mapToDouble(Double::doubleValue).sum() - (videoFiles.size() - 1) * fade);
+        // Clips without audio get silence, so one silent clip does not mute the whole video
+        ClipFormat audioReference = reference.hasAudio ? reference
+                : formats.stream().filter(format -> format.hasAudio).findFirst().orElse(null);
+        boolean withAudio = audioReference != null;
+
+        List<String> args = new ArrayList<>(List.of("-y", "-v", "error"));
+        for (String videoFile : videoFiles) {
+            args.addAll(List.of("-i", videoFile));
+        }
+
+        StringBuilder graph = new StringBuilder();
+        for (int i = 0; i < videoFiles.size(); i++) {
+            graph.append(String.format(
+                    "[%d:v]scale=%d:%d:force_original_aspect_ratio=decrease,pad=%d:%d:(ow-iw)/2:(oh-ih)/2,setsar=1,fps=%s,format=%s,settb=AVTB[v%d];",
+                    i, reference.width, reference.height, reference.width, reference.height,
+                    reference.frameRate, reference.pixelFormat, i));
+            if (withAudio) {
+                String layout = audioReference.channels == 1 ? "mono" : "stereo";
+                if (formats.get(i).hasAudio) {
+                    graph.append(String.format("[%d:a]aresample=%d,aformat=channel_layouts=%s[a%d];",
+                            i, audioReference.sampleRate, layout, i));
+                } else {
+                    graph.append(String.format(Locale.ROOT, "anullsrc=channel_layout=%s:sample_rate=%d,atrim=duration=%.3f[a%d];",
+                            layout, audioReference.sampleRate, durations.get(i), i));
+                }
+            }
+        }
+
+        // Each xfade starts one transition before the end of everything joined so far
+        String videoLabel = "v0";
+        String audioLabel = "a0";
+        double joinedLength = durations.get(0);
+        for (int i = 1; i < videoFiles.size(); i++) {
+            double offset = joinedLength - fade;
+            graph.append(String.format(Locale.ROOT, "[%s][v%d]xfade=transition=fade:duration=%.3f:offset=%.3f[vx%d];",
+                    videoLabel, i, fade, offset, i));
+            videoLabel = "vx" + i;
+            if (withAudio) {
+                graph.append(String.format(Locale.ROOT, "[%s][a%d]acrossfade=d=%.3f[ax%d];", audioLabel, i, fade, i));
+                audioLabel = "ax" + i;
+            }
+            joinedLength += durations.get(i) - fade;
+        }
+        graph.setLength(graph.length() - 1);
+
+        args.addAll(List.of("-filter_complex", graph.toString(), "-map", "[" + videoLabel + "]"));
+        addVideoEncoder(args, "h264");
+        if (withAudio) {
+            args.addAll(List.of("-map", "[" + audioLabel + "]", "-c:a", "aac"));
+        }
+        args.addAll(List.of("-movflags", "+faststart", outputPath));
+
+        runFfmpeg(args);
+        log.info("Videos assembled with full crossfade re-encode: {}", outputPath);
+        return outputPath;
+    }
+
+    /**
+     * Stream-copy part of a clip into MPEG-TS
+     * @param length Seconds to copy, or negative to copy to the end
+     */
+    private void copySegment(String inputPath, String outputPath, double start, double length) throws IOException {
+        // Seek just past the keyframe so rounding never lands on the GOP before it,
+        // and stop just short of the closing keyframe, which belongs to the transition
+        List<String> args = new ArrayList<>(List.of("-y", "-v", "error"));
+        if (start > 0) {
+            args.addAll(List.of("-ss", seconds(start + KEYFRAME_EPSILON)));
+        }
+        args.addAll(List.of("-i", inputPath));
+        if (length >= 0) {
+            args.addAll(List.of("-t", seconds(length - 2 * KEYFRAME_EPSILON)));
+        }
+        args.addAll(List.of("-map", "0:v:0", "-map", "0:a:0?", "-c", "copy",
+                "-avoid_negative_ts", "make_zero", "-f", "mpegts", outputPath));
+        runFfmpeg(args);
+    }
+
+    /**
+     * Re-encode the window around one cut: the tail of the outgoing clip from its last copied
+     * keyframe, crossfaded into the head of the incoming clip up to its first copied keyframe
+     */
+    private void encodeTransition(String outgoing, double outgoingFrom, double outgoingDuration,
+                                  String incoming, double incomingUntil, double fade,
+                                  ClipFormat reference, String outputPath, int threads) throws IOException {
+        double offset = (outgoingDuration - outgoingFrom) - fade;
+
+        List<String> args = new ArrayList<>(List.of("-y", "-v", "error",
+                "-ss", seconds(outgoingFrom), "-i", outgoing,
+                "-t", seconds(incomingUntil), "-i", incoming));
+
+        String graph = String.format(Locale.ROOT,
+                "[0:v]settb=AVTB[v0];[1:v]settb=AVTB[v1];[v0][v1]xfade=transition=fade:duration=%.3f:offset=%.3f,format=%s[v]",
+                fade, offset, reference.pixelFormat);
+        if (reference.hasAudio) {
+            graph += String.format(Locale.ROOT, ";[0:a][1:a]acrossfade=d=%.3f[a]", fade);
+        }
+
+        args.addAll(List.of("-filter_complex", graph, "-map", "[v]"));
+        addVideoEncoder(args, reference.videoCodec);
+        args.addAll(List.of("-r", reference.frameRate));
+        addThreads(args, threads);
+        if (reference.hasAudio) {
+            args.addAll(List.of("-map", "[a]", "-c:a", audioEncoder(reference.audioCodec),
+                    "-ar", String.valueOf(reference.sampleRate), "-ac", String.valueOf(reference.channels)));
+        }
+        args.addAll(List.of("-f", "mpegts", outputPath));
+        runFfmpeg(args);
+    }
+
+    /**
+     * Presentation times of the video keyframes, read from packet flags without decoding
+     */
+    private List<Double> probeKeyframes(String videoPath) throws IOException {
+        return governor.run(FFmpegGovernor.Priority.INTERACTIVE, () -> readKeyframes(videoPath));
+    }
+
+    private List<Double> readKeyframes(String videoPath) throws IOException {
+        Process process = new ProcessBuilder(ffprobe.getPath(), "-v", "error",
+                "-select_streams", "v:0", "-show_entries", "packet=pts_time,flags",
+                "-of", "csv=p=0", videoPath)
+                .redirectError(ProcessBuilder.Redirect.DISCARD)
+                .start();
+
+        List<Double> keyframes = new ArrayList<>();
+        try (BufferedReader reader = new BufferedReader(new InputStreamReader(process.getInputStream()))) {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                String[] fields = line.split(",");
+                if (fields.length >= 2 && fields[1].contains("K") && !"N/A".equals(fields[0])) {
+                    keyframes.add(Double.parseDouble(fields[0]));
+                }
+            }
+        }
+        try {
+            if (process.waitFor() != 0) {
+                throw new IOException("ffprobe failed to list keyframes of " + videoPath);
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Interrupted while probing " + videoPath, e);
+        }
+        Collections.sort(keyframes);
+        return keyframes;
+    }
+
+    private double firstKeyframeAtOrAfter(List<Double> keyframes, double time) {
+        for (double keyframe : keyframes) {
+            if (keyframe >= time) {
+                return keyframe;
+            }
+        }
+        return Double.NaN;
+    }
+
+    private double lastKeyframeAtOrBefore(List<Double> keyframes, double time) {
+        double found = Double.NaN;
+        for (double keyframe : keyframes) {
+            if (keyframe > time) {
+                break;
             }
+            found = keyframe;
         }
+        return found;
+    }
+
+    /**
+     * A fade can take at most half of the shortest clip
+     */
+    private double clampTransition(double transitionDuration, List<Double> durations) {
+        double shortest = durations.stream().mapToDouble(Double::doubleValue).min().orElse(transitionDuration * 2);
+        double fade = Math.min(transitionDuration, shortest / 2);
+        if (fade < transitionDuration) {
+            log.warn("Transition shortened from {}s to {}s to fit the shortest clip", transitionDuration, fade);
+        }
+        return fade;
+    }
+
+    private void plan(double seconds) {
+        FFmpegProgress progress = activeProgress.get();
+        if (progress != null) {
+            progress.plan(seconds);
+        }
+    }
 
-        // Remove trailing semicolon
-        if (filterComplex.length() > 0) {
-            filterComplex.setLength(filterComplex.length() - 1);
+    /**
+     * Combined length of the clips, or 0 when they cannot be probed
+     */
+    private double timelineSeconds(List<String> videoFiles) {
+        double total = 0;
+        try {
+            for (String videoFile : videoFiles) {
+                total += probe(videoFile).getDuration();
+            }
+        } catch (IOException e) {
+            return 0;
         }
+        return total;
+    }
 
-        // For now, fall back to simple concatenation
-        // Full transition support requires more complex FFmpeg command building
-        log.warn("Crossfade transitions not fully implemented, using simple concatenation");
-        return assembleSimple(videoFiles, outputPath);
+    private static String seconds(double value) {
+        return String.format(Locale.ROOT, "%.6f", value);
+    }
+
+    /**
+     * Probe a video once and return all of its metadata
+     * Results are cached by path and reused until the file's size or modification time changes
+     */
+    public VideoMetadata probe(String videoPath) throws IOException {
+        return probeEntry(videoPath).metadata;
     }
 
     /**
      * Get video duration in seconds
      */
     public double getVideoDuration(String videoPath) throws IOException {
-        FFmpegProbeResult probe = ffprobe.probe(videoPath);
-        return probe.getFormat().duration;
+        return probe(videoPath).getDuration();
     }
 
     /**
      * Get video resolution
      */
     public String getVideoResolution(String videoPath) throws IOException {
-        FFmpegProbeResult probe = ffprobe.probe(videoPath);
-        int width = probe.getStreams().get(0).width;
-        int height = probe.getStreams().get(0).height;
-        return width + "x" + height;
+        return probe(videoPath).getResolution();
+    }
+
+    private FFmpegProbeResult probeResult(String videoPath) throws IOException {
+        return probeEntry(videoPath).result;
+    }
+
+    private ProbeEntry probeEntry(String videoPath) throws IOException {
+        Path path = Paths.get(videoPath).toAbsolutePath();
+        BasicFileAttributes attributes = Files.readAttributes(path, BasicFileAttributes.class);
+        long size = attributes.size();
+        long modified = attributes.lastModifiedTime().toMillis();
+        String key = path.toString();
+
+        synchronized (probeCache) {
+            ProbeEntry cached = probeCache.get(key);
+            if (cached != null && cached.size == size && cached.modified == modified) {
+                return cached;
+            }
+        }
+
+        FFmpegProbeResult result = governor.run(FFmpegGovernor.Priority.INTERACTIVE, () -> ffprobe.probe(videoPath));
+        ProbeEntry entry = new ProbeEntry(size, modified, result, VideoMetadata.of(result, size));
+        synchronized (probeCache) {
+            probeCache.put(key, entry);
+        }
+        return entry;
     }
 
     /**
      * Extract thumbnail from video
+     * Seeks on the input without accurate seek, so the keyframe at or before the requested
+     * time is the frame written and nothing between it and the requested time is decoded
      */
     public String extractThumbnail(String videoPath, String thumbnailPath, double timeInSeconds) throws IOException {
-        log.info("Extracting thumbnail from {} at {}s", videoPath, timeInSeconds);
+        double time = clampToDuration(videoPath, timeInSeconds);
+        log.info("Extracting thumbnail from {} at {}s", videoPath, time);
 
         FFmpegBuilder builder = new FFmpegBuilder()
+                .addExtraArgs("-noaccurate_seek", "-ss", seconds(time))
                 .setInput(videoPath)
-                .addExtraArgs("-ss", String.valueOf(timeInSeconds))
                 .addOutput(thumbnailPath)
                 .setFrames(1)
                 .done();
 
-        FFmpegExecutor executor = new FFmpegExecutor(ffmpeg, ffprobe);
-        executor.createJob(builder).run();
+        runJob(FFmpegGovernor.Priority.INTERACTIVE, builder);
 
         log.info("Thumbnail extracted: {}", thumbnailPath);
         return thumbnailPath;
     }
 
+    /**
+     * Extract a thumbnail and a filmstrip sprite of evenly spaced frames in one decoding pass
+     * The sprite layout is returned and also written next to the sprite as a .json index
+     * @param frames Frames in the sprite
+     * @param frameWidth Width of each sprite frame; height follows the video's aspect ratio
+     */
+    public SpriteSheet extractPreviews(String videoPath, String thumbnailPath, String spritePath,
+                                       double thumbnailTime, int frames, int frameWidth) throws IOException {
+        VideoMetadata metadata = probe(videoPath);
+        double duration = metadata.getDuration();
+        if (duration <= 0 || metadata.getWidth() == 0) {
+            throw new IOException("Cannot build previews for " + videoPath + ": no video stream");
+        }
+
+        double time = clampToDuration(videoPath, thumbnailTime);
+        int columns = Math.min(frames, SPRITE_MAX_COLUMNS);
+        int rows = (frames + columns - 1) / columns;
+        int frameHeight = (int) Math.round((double) frameWidth * metadata.getHeight() / metadata.getWidth() / 2) * 2;
+        double interval = duration / frames;
+
+        log.info("Extracting thumbnail and {}-frame sprite from {}", frames, videoPath);
+
+        String graph = String.format(Locale.ROOT,
+                "[0:v]split=2[t][s];[t]trim=start=%.3f,setpts=PTS-STARTPTS[thumb];" +
+                "[s]fps=%d/%.6f,scale=%d:%d,setsar=1,tile=%dx%d[sprite]",
+                time, frames, duration, frameWidth, frameHeight, columns, rows);
+        runFfmpeg(FFmpegGovernor.Priority.INTERACTIVE, List.of(
+                "-y", "-v", "error", "-i", videoPath,
+                "-filter_complex", graph,
+                "-map", "[thumb]", "-frames:v", "1", thumbnailPath,
+                "-map", "[sprite]", "-frames:v", "1", spritePath
+        ));
+
+        SpriteSheet sheet = new SpriteSheet(null, columns, rows, frames, frameWidth, frameHeight, interval);
+        Path indexPath = Paths.get(spritePath.replaceFirst("\\.[^.]+$", "") + ".json");
+        Files.writeString(indexPath, new Gson().toJson(sheet));
+
+        log.info("Previews extracted: {}, {}", thumbnailPath, spritePath);
+        return sheet;
+    }
+
+    /**
+     * Keep a seek time inside the clip, for clips shorter than the requested time
+     */
+    private double clampToDuration(String videoPath, double time) {
+        try {
+            double duration = probe(videoPath).getDuration();
+            return duration > 0 && time >= duration ? duration / 2 : time;
+        } catch (IOException e) {
+            return time;
+        }
+    }
+
+    /**
+     * Package a video as an HLS playlist of MPEG-TS segments in a directory of its own
+     * Streams are copied, so segments are cut at the source keyframes and may run longer than
+     * the target; sources HLS cannot carry as-is are re-encoded with keyframes on the segment grid
+     * @return Path of the playlist, index.m3u8 in the output directory
+     */
+    public String packageHls(String inputPath, String outputDir) throws IOException {
+        Path dir = Paths.get(outputDir);
+        Files.createDirectories(dir);
+        String playlist = dir.resolve(HLS_PLAYLIST).toString();
+        String segments = dir.resolve("segment_%04d.ts").toString();
+
+        List<String> args = new ArrayList<>(List.of("-y", "-v", "error", "-i", inputPath,
+                "-map", "0:v:0", "-map", "0:a:0?", "-c", "copy"));
+        args.addAll(hlsOptions(segments, playlist));
+        try {
+            runFfmpeg(args);
+        } catch (IOException e) {
+            log.warn("HLS stream copy failed for {} ({}), re-encoding", inputPath, e.getMessage());
+            List<String> encode = new ArrayList<>(List.of("-y", "-v", "error", "-i", inputPath,
+                    "-map", "0:v:0", "-map", "0:a:0?",
+                    "-c:v", videoCodec, "-crf", String.valueOf(crf),
+                    "-force_key_frames", "expr:gte(t,n_forced*" + hlsSegmentSeconds + ")",
+                    "-c:a", "aac"));
+            encode.addAll(hlsOptions(segments, playlist));
+            runFfmpeg(encode);
+        }
+
+        log.info("Packaged {} as HLS: {}", inputPath, playlist);
+        return playlist;
+    }
+
+    private List<String> hlsOptions(String segments, String playlist) {
+        return List.of(
+                "-f", "hls",
+                "-hls_time", String.valueOf(hlsSegmentSeconds),
+                "-hls_playlist_type", "vod",
+                "-hls_segment_filename", segments,
+                playlist
+        );
+    }
+
     /**
      * Convert video to different format/quality
+     * With segmented encoding the video is split at keyframes into one chunk per encode
+     * thread, the chunks and the audio are encoded in parallel and then joined by stream copy
      */
     public String convertVideo(String inputPath, String outputPath, String codec, int crf) throws IOException {
         log.info("Converting video {} to {}", inputPath, outputPath);
 
+        if (segmentedEncoding) {
+            try {
+                if (convertSegmented(inputPath, outputPath, codec, crf)) {
+                    log.info("Video converted successfully: {}", outputPath);
+                    return outputPath;
+                }
+            } catch (IOException | RuntimeException e) {
+                log.warn("Segmented conversion failed ({}), converting in a single process", e.getMessage());
+            }
+        }
+
         FFmpegBuilder builder = new FFmpegBuilder()
                 .setInput(inputPath)
                 .addOutput(outputPath)
@@ -185,21 +1000,235 @@ public class FFmpegProcessor {
                 .setStrict(FFmpegBuilder.Strict.EXPERIMENTAL)
                 .done();
 
-        FFmpegExecutor executor = new FFmpegExecutor(ffmpeg, ffprobe);
-        executor.createJob(builder).run();
+        runJob(FFmpegGovernor.Priority.BULK, builder);
 
         log.info("Video converted successfully: {}", outputPath);
         return outputPath;
     }
 
+    /**
+     * @return false if the video is too short to be worth splitting
+     */
+    private boolean convertSegmented(String inputPath, String outputPath, String codec, int crf) throws IOException {
+        FFmpegProbeResult probe = probeResult(inputPath);
+        boolean hasAudio = ClipFormat.of(probe).hasAudio;
+        List<Double> keyframes = probeKeyframes(inputPath);
+
+        // Chunk boundaries: the keyframe nearest each equal split of the timeline
+        int chunks = Math.min(encodeExecutor.getMaxPoolSize(), keyframes.size());
+        double duration = probe.getFormat().duration;
+        List<Double> starts = new ArrayList<>();
+        for (int i = 0; i < chunks; i++) {
+            double target = duration * i / chunks;
+            double nearest = keyframes.stream()
+                    .min(Comparator.comparingDouble(keyframe -> Math.abs(keyframe - target)))
+                    .orElse(0.0);
+            if (starts.isEmpty() || nearest > starts.get(starts.size() - 1)) {
+                starts.add(starts.isEmpty() ? 0.0 : nearest);
+            }
+        }
+        if (starts.size() < 2) {
+            return false;
+        }
+
+        // Transport streams carry parameters in-band; other codecs go through Matroska
+        String chunkFormat = codec.contains("264") || codec.contains("265") || codec.contains("hevc") ? "mpegts" : "matroska";
+        Path workDir = Files.createTempDirectory(Paths.get(outputPath).toAbsolutePath().getParent(), ".convert-");
+        try {
+            List<String> parts = new ArrayList<>();
+            List<EncodeTask> tasks = new ArrayList<>();
+            for (int i = 0; i < starts.size(); i++) {
+                // Seek just before each keyframe so it lands in exactly one chunk
+                double from = i == 0 ? 0 : starts.get(i) - KEYFRAME_EPSILON;
+                double to = i == starts.size() - 1 ? -1 : starts.get(i + 1) - KEYFRAME_EPSILON;
+                String part = workDir.resolve(String.format("chunk_%03d.%s", i, "mpegts".equals(chunkFormat) ? "ts" : "mkv")).toString();
+                parts.add(part);
+                tasks.add(threads -> {
+                    List<String> args = new ArrayList<>(List.of("-y", "-v", "error"));
+                    if (from > 0) {
+                        args.addAll(List.of("-ss", seconds(from)));
+                    }
+                    args.addAll(List.of("-i", inputPath));
+                    if (to > 0) {
+                        args.addAll(List.of("-t", seconds(to - from)));
+                    }
+                    args.addAll(List.of("-map", "0:v:0", "-an", "-c:v", codec, "-crf", String.valueOf(crf)));
+                    addThreads(args, threads);
+                    args.addAll(List.of("-f", chunkFormat, part));
+                    runFfmpeg(args);
+                });
+            }
+
+            // Audio in one piece, so chunk boundaries never add encoder priming gaps
+            String audio = workDir.resolve("audio.mka").toString();
+            if (hasAudio) {
+                tasks.add(threads -> runFfmpeg(List.of("-y", "-v", "error", "-i", inputPath,
+                        "-map", "0:a:0", "-vn", "-c:a", "aac", "-f", "matroska", audio)));
+            }
+            runAll(tasks);
+
+            Path concatFile = workDir.resolve("concat.txt");
+            writeConcatList(parts, concatFile);
+            List<String> args = new ArrayList<>(List.of("-y", "-v", "error",
+                    "-f", "concat", "-safe", "0", "-i", concatFile.toString()));
+            if (hasAudio) {
+                args.addAll(List.of("-i", audio, "-map", "0:v:0", "-map", "1:a:0"));
+            }
+            args.addAll(List.of("-c", "copy", "-movflags", "+faststart", outputPath));
+            runFfmpeg(args);
+
+            log.info("Converted {} in {} parallel chunks", inputPath, parts.size());
+            return true;
+        } finally {
+            deleteRecursively(workDir);
+        }
+    }
+
+    /**
+     * Run one bulk ffmpeg command through the process governor
+     */
+    private void runFfmpeg(List<String> args) throws IOException {
+        runFfmpeg(FFmpegGovernor.Priority.BULK, args);
+    }
+
+    private void runFfmpeg(FFmpegGovernor.Priority priority, List<String> args) throws IOException {
+        FFmpegProgress progress = activeProgress.get();
+        governor.run(priority, () -> {
+            List<String> command = priority == FFmpegGovernor.Priority.BULK ? limitThreads(args) : args;
+            if (progress == null) {
+                ffmpeg.run(command);
+                return null;
+            }
+
+            // ffmpeg writes key=value progress blocks to a local socket while it runs
+            Object process = new Object();
+            try (ProgressSocket socket = new ProgressSocket(fields -> progress.update(process, fields))) {
+                List<String> tracked = new ArrayList<>(List.of("-progress", socket.getUrl()));
+                tracked.addAll(command);
+                ffmpeg.run(tracked);
+            } finally {
+                progress.finished(process);
+            }
+            return null;
+        });
+    }
+
+    private void runJob(FFmpegGovernor.Priority priority, FFmpegBuilder builder) throws IOException {
+        runFfmpeg(priority, builder.build());
+    }
+
+    /**
+     * Cap a bulk command without its own -threads at its share of the cores among the processes
+     * running when it starts, as an output option in front of the output file
+     * A command running alone keeps ffmpeg's own threading
+     */
+    private List<String> limitThreads(List<String> args) {
+        int share = governor.coreShare();
+        if (args.contains("-threads") || share >= governor.getCores()) {
+            return args;
+        }
+        List<String> limited = new ArrayList<>(args.subList(0, args.size() - 1));
+        addThreads(limited, share);
+        limited.add(args.get(args.size() - 1));
+        return limited;
+    }
+
+    /**
+     * Run independent ffmpeg jobs, in parallel on the encode pool when segmented encoding is on
+     * Each job gets an equal share of the cores as its ffmpeg thread count
+     */
+    void runAll(List<EncodeTask> tasks) throws IOException {
+        if (!segmentedEncoding || tasks.size() < 2) {
+            for (EncodeTask task : tasks) {
+                task.run(0);
+            }
+            return;
+        }
+
+        int parallel = Math.min(tasks.size(), encodeExecutor.getMaxPoolSize());
+        int threads = Math.max(1, Runtime.getRuntime().availableProcessors() / parallel);
+
+        FFmpegProgress progress = activeProgress.get();
+        // Results are taken as they finish, so the first failure cancels the rest right away
+        CompletionService<Void> completion = new ExecutorCompletionService<>(encodeExecutor);
+        List<Future<Void>> futures = new ArrayList<>();
+        List<EncodeProcesses> processes = new ArrayList<>();
+        for (EncodeTask task : tasks) {
+            EncodeProcesses taskProcesses = new EncodeProcesses();
+            processes.add(taskProcesses);
+            futures.add(completion.submit(() -> {
+                FFmpegProgress callerProgress = activeProgress.get();
+                EncodeProcesses callerProcesses = activeProcesses.get();
+                activeProgress.set(progress);
+                activeProcesses.set(taskProcesses);
+                try {
+                    task.run(threads);
+                } finally {
+                    // Caller-runs rejections execute on the submitting thread, which keeps its own
+                    activeProgress.set(callerProgress);
+                    activeProcesses.set(callerProcesses);
+                }
+                return null;
+            }));
+        }
+
+        IOException failure = null;
+        for (int i = 0; i < futures.size(); i++) {
+            try {
+                completion.take().get();
+            } catch (ExecutionException e) {
+                if (failure == null) {
+                    failure = e.getCause() instanceof IOException
+                            ? (IOException) e.getCause() : new IOException(e.getCause().getMessage(), e.getCause());
+                    cancelAll(futures, processes);
+                }
+            } catch (CancellationException e) {
+                // Cancelled after an earlier failure
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                cancelAll(futures, processes);
+                throw new IOException("Interrupted while encoding segments", e);
+            }
+        }
+        if (failure != null) {
+            throw failure;
+        }
+    }
+
+    /**
+     * Cancel the remaining encodes and kill their ffmpeg processes; interrupting a task does
+     * not stop one, as the task is blocked reading the process output
+     */
+    private static void cancelAll(List<Future<Void>> futures, List<EncodeProcesses> processes) {
+        futures.forEach(pending -> pending.cancel(true));
+        processes.forEach(EncodeProcesses::cancel);
+    }
+
+    /**
+     * Start an ffmpeg process, recording it with the parallel encode on this thread
+     */
+    private Process startProcess(List<String> args) throws IOException {
+        Process process = processFunction.run(args);
+        EncodeProcesses processes = activeProcesses.get();
+        if (processes != null) {
+            processes.add(process);
+        }
+        return process;
+    }
+
+    private static void addThreads(List<String> args, int threads) {
+        if (threads > 0) {
+            args.addAll(List.of("-threads", String.valueOf(threads)));
+        }
+    }
+
     /**
      * Validate video file
      */
     public boolean isValidVideo(String videoPath) {
         try {
-            FFmpegProbeResult probe = ffprobe.probe(videoPath);
-            return probe.getStreams().size() > 0;
-        } catch (IOException e) {
+            return probe(videoPath).getStreamCount() > 0;
+        } catch (IOException | RuntimeException e) {
             log.error("Invalid video file: {}", videoPath);
             return false;
         }
@@ -212,4 +1241,178 @@ public class FFmpegProcessor {
         File file = new File(videoPath);
         return file.exists() ? file.length() : 0;
     }
+
+    private static class ProbeEntry {
+        final long size;
+        final long modified;
+        final FFmpegProbeResult result;
+        final VideoMetadata metadata;
+
+        ProbeEntry(long size, long modified, FFmpegProbeResult result, VideoMetadata metadata) {
+            this.size = size;
+            this.modified = modified;
+            this.result = result;
+            this.metadata = metadata;
+        }
+    }
+
+    /**
+     * Everything one ffprobe call reports about a video file
+     */
+    public static class VideoMetadata {
+        private final double duration;
+        private final int width;
+        private final int height;
+        private final String videoCodec;
+        private final String audioCodec;
+        private final String frameRate;
+        private final long bitRate;
+        private final int streamCount;
+        private final long fileSize;
+
+        public VideoMetadata(double duration, int width, int height, String videoCodec, String audioCodec,
+                             String frameRate, long bitRate, int streamCount, long fileSize) {
+            this.duration = duration;
+            this.width = width;
+            this.height = height;
+            this.videoCodec = videoCodec;
+            this.audioCodec = audioCodec;
+            this.frameRate = frameRate;
+            this.bitRate = bitRate;
+            this.streamCount = streamCount;
+            this.fileSize = fileSize;
+        }
+
+        static VideoMetadata of(FFmpegProbeResult probe, long fileSize) {
+            FFmpegStream video = null;
+            FFmpegStream audio = null;
+            for (FFmpegStream stream : probe.getStreams()) {
+                if (stream.codec_type == FFmpegStream.CodecType.VIDEO && video == null) {
+                    video = stream;
+                } else if (stream.codec_type == FFmpegStream.CodecType.AUDIO && audio == null) {
+                    audio = stream;
+                }
+            }
+            return new VideoMetadata(
+                    probe.getFormat().duration,
+                    video != null ? video.width : 0,
+                    video != null ? video.height : 0,
+                    video != null ? video.codec_name : null,
+                    audio != null ? audio.codec_name : null,
+                    video != null && video.r_frame_rate != null ? video.r_frame_rate.toString() : null,
+                    probe.getFormat().bit_rate,
+                    probe.getStreams().size(),
+                    fileSize);
+        }
+
+        public double getDuration() { return duration; }
+        public int getWidth() { return width; }
+        public int getHeight() { return height; }
+        public String getResolution() { return width + "x" + height; }
+        public String getVideoCodec() { return videoCodec; }
+        public String getAudioCodec() { return audioCodec; }
+        public boolean hasAudio() { return audioCodec != null; }
+        public String getFrameRate() { return frameRate; }
+        public long getBitRate() { return bitRate; }
+        public int getStreamCount() { return streamCount; }
+        public long getFileSize() { return fileSize; }
+    }
+
+    /**
+     * ffmpeg processes started by one parallel encode
+     */
+    private static class EncodeProcesses {
+        private final List<Process> processes = new ArrayList<>();
+        private boolean cancelled;
+
+        synchronized void add(Process process) {
+            processes.add(process);
+            if (cancelled) {
+                process.destroyForcibly();
+            }
+        }
+
+        synchronized void cancel() {
+            cancelled = true;
+            for (Process process : processes) {
+                if (process.isAlive()) {
+                    log.info("Killing ffmpeg process {} of a cancelled encode", process.pid());
+                    process.destroyForcibly();
+                }
+            }
+        }
+    }
+
+    /**
+     * One ffmpeg invocation that can run alongside others
+     */
+    @FunctionalInterface
+    interface EncodeTask {
+        /**
+         * @param threads ffmpeg thread count, or 0 to let ffmpeg decide
+         */
+        void run(int threads) throws IOException;
+    }
+
+    /**
+     * Stream parameters that must be identical for clips to be joined by stream copy
+     */
+    private static class ClipFormat {
+        final String videoCodec;
+        final int width;
+        final int height;
+        final String pixelFormat;
+        final String frameRate;
+        final boolean hasAudio;
+        final String audioCodec;
+        final int sampleRate;
+        final int channels;
+
+        private ClipFormat(FFmpegStream video, FFmpegStream audio) {
+            this.videoCodec = video != null ? video.codec_name : null;
+            this.width = video != null ? video.width : 0;
+            this.height = video != null ? video.height : 0;
+            this.pixelFormat = video != null ? video.pix_fmt : null;
+            this.frameRate = video != null && video.r_frame_rate != null ? video.r_frame_rate.toString() : null;
+            this.hasAudio = audio != null;
+            this.audioCodec = audio != null ? audio.codec_name : null;
+            this.sampleRate = audio != null ? audio.sample_rate : 0;
+            this.channels = audio != null ? audio.channels : 0;
+        }
+
+        static ClipFormat of(FFmpegProbeResult probe) {
+            FFmpegStream video = null;
+            FFmpegStream audio = null;
+            for (FFmpegStream stream : probe.getStreams()) {
+                if (stream.codec_type == FFmpegStream.CodecType.VIDEO && video == null) {
+                    video = stream;
+                } else if (stream.codec_type == FFmpegStream.CodecType.AUDIO && audio == null) {
+                    audio = stream;
+                }
+            }
+            return new ClipFormat(video, audio);
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) return true;
+            if (!(o instanceof ClipFormat)) return false;
+            ClipFormat that = (ClipFormat) o;
+            return width == that.width && height == that.height && hasAudio == that.hasAudio
+                    && sampleRate == that.sampleRate && channels == that.channels
+                    && Objects.equals(videoCodec, that.videoCodec) && Objects.equals(pixelFormat, that.pixelFormat)
+                    && Objects.equals(frameRate, that.frameRate) && Objects.equals(audioCodec, that.audioCodec);
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(videoCodec, width, height, pixelFormat, frameRate, hasAudio, audioCodec, sampleRate, channels);
+        }
+
+        @Override
+        public String toString() {
+            return String.format("%s %dx%d %s@%s%s", videoCodec, width, height, pixelFormat, frameRate,
+                    hasAudio ? String.format(" + %s %dHz/%dch", audioCodec, sampleRate, channels) : "");
+        }
+    }
 }
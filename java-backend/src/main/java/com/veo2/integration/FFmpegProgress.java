@@ -0,0 +1,152 @@
+package com.veo2.integration;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.function.Consumer;
+
+/**
+ * Progress of one operation that may run several ffmpeg processes, in turn or in parallel
+ * Work is counted in seconds of media written: each stage plans how much it will write before
+ * it starts, and every process reports how far it got through ffmpeg's -progress stream
+ */
+public class FFmpegProgress {
+
+    private final Consumer<FFmpegProgress> listener;
+    private final long startedAt = System.nanoTime();
+
+    private double plannedSeconds;
+    private double finishedSeconds;
+    private long finishedFrames;
+    // Latest report of every process still running
+    private final Map<Object, Report> running = new HashMap<>();
+
+    /**
+     * @param listener Called after every progress report, on the reporting thread
+     */
+    public FFmpegProgress(Consumer<FFmpegProgress> listener) {
+        this.listener = listener;
+    }
+
+    /**
+     * Add work a stage is about to do, in seconds of output
+     */
+    public synchronized void plan(double seconds) {
+        plannedSeconds += Math.max(0, seconds);
+    }
+
+    /**
+     * Take one -progress block from a running process
+     */
+    void update(Object process, Map<String, String> fields) {
+        synchronized (this) {
+            Report previous = running.get(process);
+            running.put(process, Report.of(fields, previous));
+        }
+        listener.accept(this);
+    }
+
+    void finished(Object process) {
+        synchronized (this) {
+            Report last = running.remove(process);
+            if (last != null) {
+                finishedSeconds += last.seconds;
+                finishedFrames += last.frames;
+            }
+        }
+        listener.accept(this);
+    }
+
+    /**
+     * Seconds of media written so far by all processes
+     */
+    public synchronized double getProcessedSeconds() {
+        double seconds = finishedSeconds;
+        for (Report report : running.values()) {
+            seconds += report.seconds;
+        }
+        return seconds;
+    }
+
+    public synchronized double getPlannedSeconds() {
+        return plannedSeconds;
+    }
+
+    /**
+     * Share of the planned work done, 0 to 1
+     */
+    public synchronized double getFraction() {
+        return plannedSeconds > 0 ? Math.min(1.0, getProcessedSeconds() / plannedSeconds) : 0;
+    }
+
+    /**
+     * Combined speed of the running processes, as a multiple of real time
+     */
+    public synchronized double getSpeed() {
+        double speed = 0;
+        for (Report report : running.values()) {
+            speed += report.speed;
+        }
+        return speed;
+    }
+
+    /**
+     * Frames written so far by all processes
+     */
+    public synchronized long getFrames() {
+        long frames = finishedFrames;
+        for (Report report : running.values()) {
+            frames += report.frames;
+        }
+        return frames;
+    }
+
+    /**
+     * Seconds left at the average rate so far, or -1 before there is a rate to go by
+     */
+    public synchronized long getRemainingSeconds() {
+        double elapsed = (System.nanoTime() - startedAt) / 1e9;
+        double processed = getProcessedSeconds();
+        if (processed <= 0 || elapsed <= 0) {
+            return -1;
+        }
+        double rate = processed / elapsed;
+        return (long) Math.ceil(Math.max(0, plannedSeconds - processed) / rate);
+    }
+
+    /**
+     * Where one process is; fields ffmpeg reports as N/A keep their previous value
+     */
+    private static class Report {
+        final double seconds;
+        final long frames;
+        final double speed;
+
+        Report(double seconds, long frames, double speed) {
+            this.seconds = seconds;
+            this.frames = frames;
+            this.speed = speed;
+        }
+
+        static Report of(Map<String, String> fields, Report previous) {
+            // out_time_ms is in microseconds too, kept for older ffmpeg builds
+            String outTime = fields.getOrDefault("out_time_us", fields.get("out_time_ms"));
+            double micros = parse(outTime, previous != null ? previous.seconds * 1e6 : 0);
+            double frames = parse(fields.get("frame"), previous != null ? previous.frames : 0);
+            String speed = fields.get("speed");
+            double multiple = parse(speed != null ? speed.replace("x", "") : null, 0);
+            // Copies with shifted timestamps can start negative
+            return new Report(Math.max(0, micros) / 1e6, (long) frames, Math.max(0, multiple));
+        }
+
+        private static double parse(String value, double fallback) {
+            if (value == null) {
+                return fallback;
+            }
+            try {
+                return Double.parseDouble(value.trim());
+            } catch (NumberFormatException e) {
+                return fallback;
+            }
+        }
+    }
+}
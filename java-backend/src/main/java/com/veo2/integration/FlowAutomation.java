@@ -5,7 +5,6 @@ import com.veo2.util.CookieManager;
 import org.openqa.selenium.*;
 import org.openqa.selenium.chrome.ChromeDriver;
 import org.openqa.selenium.chrome.ChromeOptions;
-import org.openqa.selenium.support.ui.ExpectedConditions;
 import org.openqa.selenium.support.ui.WebDriverWait;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -13,8 +12,14 @@ import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Component;
 
+import java.io.IOException;
+import java.net.URI;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
 import java.time.Duration;
 import java.util.*;
+import java.util.stream.Stream;
 
 @Component
 public class FlowAutomation {
@@ -33,16 +38,74 @@ public class FlowAutomation {
     @Value("${veo2.storage.cookies-file}")
     private String cookiesFile;
 
+    @Value("${veo2.browser.capture-mode:cdp}")
+    private String captureMode; // cdp or ui
+
+    @Value("${veo2.browser.capture-timeout:30000}")
+    private long captureTimeout;
+
+    @Value("${veo2.browser.download-dir:./data/videos}")
+    private String downloadDir;
+
+    @Value("${veo2.browser.ui-download-timeout:180000}")
+    private long uiDownloadTimeout;
+
     @Autowired
     private CookieManager cookieManager;
 
-    private WebDriver driver;
-    private WebDriverWait wait;
+    @Autowired
+    private MediaDownloader mediaDownloader;
+
+    @Autowired
+    private FlowDomWaiter domWaiter;
+
+    private static final int PAGE_READY_TIMEOUT_SECONDS = 15;
+    private static final long DOWNLOAD_POLL_MILLIS = 500;
+
+    // One pass over all pipeline tabs takes about this long
+    private static final long PIPELINE_CYCLE_MILLIS = 4000;
+    // Shortest pass, so tabs that fail fast (e.g. page errors) are not polled in a tight loop
+    private static final long PIPELINE_MIN_CYCLE_MILLIS = 1000;
+    private static final Duration ELEMENT_TIMEOUT = Duration.ofSeconds(10);
+
+    // Candidate selectors per logical element; the last one that matched is tried first
+    private static final List<String> PROMPT_TEXTAREA = List.of(
+            "textarea[placeholder*='Tạo một video']",
+            "textarea[placeholder*='Create a video']",
+            "textarea"
+    );
+    private static final List<String> GENERATE_BUTTON = List.of(
+            "xpath://button[not(@disabled)][.//i[normalize-space()='arrow_forward']]",
+            "xpath://button[not(@disabled)][contains(normalize-space(), 'Tạo')]",
+            "button[aria-label*='Generate']:not([disabled])",
+            "button[type='submit']:not([disabled])"
+    );
+    private static final List<String> MORE_MENU_BUTTON = List.of(
+            "xpath://button[.//i[normalize-space()='more_vert']]",
+            "xpath://button[contains(normalize-space(), 'more_vert')]"
+    );
+    private static final List<String> DOWNLOAD_MENU_ITEM = List.of(
+            "xpath://*[@role='menuitem'][contains(normalize-space(), 'Tải xuống')]",
+            "xpath://*[@role='menuitem'][contains(normalize-space(), 'Download')]"
+    );
+    private static final List<String> QUALITY_1080P = List.of(
+            "xpath://*[@role='menuitem'][contains(normalize-space(), '1080p')]",
+            "xpath://div[contains(normalize-space(), '1080p')][not(.//div[contains(normalize-space(), '1080p')])]"
+    );
+
+    // A clip that was not on the page before the scene was submitted
+    private static final String SEEN_ATTRIBUTE = "data-veo2-seen";
+    private static final String CLIP_ATTRIBUTE = "data-veo2-clip";
+    private static final List<String> NEW_VIDEO = List.of(
+            "video[src]:not([" + SEEN_ATTRIBUTE + "])",
+            "xpath://video[source][not(@" + SEEN_ATTRIBUTE + ")]"
+    );
 
     /**
-     * Initialize browser and load cookies
+     * Start a new Chrome instance
+     * Each session is independent, so several jobs or scenes can drive Flow at once
      */
-    public void initializeBrowser() {
+    public FlowSession initializeBrowser() {
         log.info("Initializing Chrome browser...");
 
         ChromeOptions options = new ChromeOptions();
@@ -55,22 +118,31 @@ public class FlowAutomation {
         options.addArguments("--window-size=1920,1080");
         options.addArguments("--user-agent=Mozilla/5.0 (Macintosh; Intel Mac OS X 10_15_7) AppleWebKit/537.36");
 
-        // Set download preferences
+        // Menu downloads go to a directory of this browser's own, so a finished file can be told apart
+        Path browserDownloads = Paths.get(downloadDir, ".browser-" + UUID.randomUUID().toString().substring(0, 8))
+                .toAbsolutePath();
+        browserDownloads.toFile().mkdirs();
         Map<String, Object> prefs = new HashMap<>();
-        prefs.put("download.default_directory", System.getProperty("user.dir") + "/data/videos");
+        prefs.put("download.default_directory", browserDownloads.toString());
         prefs.put("download.prompt_for_download", false);
         options.setExperimentalOption("prefs", prefs);
 
-        driver = new ChromeDriver(options);
-        wait = new WebDriverWait(driver, Duration.ofSeconds(timeout / 1000));
+        WebDriver driver = new ChromeDriver(options);
+        driver.manage().timeouts().scriptTimeout(FlowDomWaiter.SCRIPT_TIMEOUT);
+        FlowMediaCapture capture = "cdp".equalsIgnoreCase(captureMode) ? FlowMediaCapture.attach(driver) : null;
+        FlowSession session = new FlowSession(driver, new WebDriverWait(driver, Duration.ofSeconds(timeout / 1000)), capture);
+        session.setMainWindowHandle(driver.getWindowHandle());
+        session.setDownloadDir(browserDownloads);
 
-        log.info("Browser initialized successfully");
+        log.info("Browser initialized successfully: {}", session.getSessionId());
+        return session;
     }
 
     /**
      * Load cookies and navigate to Flow
      */
-    public boolean loadCookiesAndNavigate() {
+    public boolean loadCookiesAndNavigate(FlowSession session) {
+        WebDriver driver = session.getDriver();
         try {
             log.info("Loading cookies from {}", cookiesFile);
 
@@ -90,7 +162,7 @@ public class FlowAutomation {
 
             // Navigate to Flow domain first
             driver.get(flowUrl);
-            Thread.sleep(2000);
+            waitForPageReady(session);
 
             // Add cookies to browser
             Set<Cookie> cookies = cookieManager.convertToCookies(jsonCookies);
@@ -104,7 +176,7 @@ public class FlowAutomation {
 
             // Navigate to Flow again with cookies
             driver.get(flowUrl);
-            Thread.sleep(3000);
+            waitForPageReady(session);
 
             // Check if authentication was successful
             String currentUrl = driver.getCurrentUrl();
@@ -123,35 +195,71 @@ public class FlowAutomation {
     }
 
     /**
-     * Generate video for a scene
+     * Wait until the current document has finished loading
      */
-    public boolean generateVideo(Scene scene) {
+    private void waitForPageReady(FlowSession session) {
         try {
-            log.info("Generating video for scene {}", scene.getSceneNumber());
+            new WebDriverWait(session.getDriver(), Duration.ofSeconds(PAGE_READY_TIMEOUT_SECONDS)).until(driver ->
+                    "complete".equals(((JavascriptExecutor) driver).executeScript("return document.readyState")));
+        } catch (TimeoutException e) {
+            log.warn("Page not ready after {}s, continuing", PAGE_READY_TIMEOUT_SECONDS);
+        }
+    }
 
-            // Find and fill prompt textarea
-            WebElement textarea = findPromptTextarea();
-            if (textarea == null) {
-                log.error("Could not find prompt textarea");
-                return false;
+    /**
+     * Check that a session's browser is alive and still logged in
+     */
+    public boolean isHealthy(FlowSession session) {
+        try {
+            WebDriver driver = session.getDriver();
+            driver.getWindowHandle();
+            String currentUrl = driver.getCurrentUrl();
+            return currentUrl != null && !currentUrl.contains("accounts.google.com");
+        } catch (Exception e) {
+            log.debug("Session {} failed health check: {}", session.getSessionId(), e.getMessage());
+            return false;
+        }
+    }
+
+    /**
+     * Bring a session back to a clean Flow page before it is reused
+     */
+    public boolean resetSession(FlowSession session) {
+        try {
+            WebDriver driver = session.getDriver();
+            String mainHandle = session.getMainWindowHandle() != null
+                    ? session.getMainWindowHandle() : driver.getWindowHandles().iterator().next();
+            for (String handle : driver.getWindowHandles()) {
+                if (!handle.equals(mainHandle)) {
+                    driver.switchTo().window(handle).close();
+                }
+            }
+            driver.switchTo().window(mainHandle);
+            if (session.getMediaCapture() != null) {
+                session.getMediaCapture().reset();
             }
+            driver.get(flowUrl);
+            waitForPageReady(session);
+            return isHealthy(session);
+        } catch (Exception e) {
+            log.warn("Failed to reset session {}: {}", session.getSessionId(), e.getMessage());
+            return false;
+        }
+    }
 
-            textarea.clear();
-            textarea.sendKeys(scene.getVeoPrompt());
-            Thread.sleep(1000);
+    /**
+     * Generate video for a scene
+     */
+    public boolean generateVideo(FlowSession session, Scene scene) {
+        try {
+            log.info("Generating video for scene {} in {}", scene.getSceneNumber(), session.getSessionId());
 
-            // Click generate button
-            WebElement generateButton = findGenerateButton();
-            if (generateButton == null) {
-                log.error("Could not find generate button");
+            if (!submitPrompt(session, scene)) {
                 return false;
             }
 
-            generateButton.click();
-            log.info("Clicked generate button for scene {}", scene.getSceneNumber());
-
             // Wait for video generation to complete
-            return waitForVideoGeneration();
+            return waitForVideoGeneration(session, scene);
 
         } catch (Exception e) {
             log.error("Failed to generate video for scene {}: {}", scene.getSceneNumber(), e.getMessage());
@@ -160,77 +268,212 @@ public class FlowAutomation {
     }
 
     /**
-     * Find prompt textarea using multiple selectors
+     * Fill the prompt in the current tab and start generation
      */
-    private WebElement findPromptTextarea() {
-        String[] selectors = {
-                "textarea[node='72']",
-                "textarea[placeholder*='Tạo một video']",
-                "textarea[placeholder*='Create a video']",
-                "textarea"
-        };
-
-        for (String selector : selectors) {
-            try {
-                List<WebElement> elements = driver.findElements(By.cssSelector(selector));
-                if (!elements.isEmpty()) {
-                    log.debug("Found textarea with selector: {}", selector);
-                    return elements.get(0);
+    private boolean submitPrompt(FlowSession session, Scene scene) {
+        WebDriver driver = session.getDriver();
+
+        // Find and fill prompt textarea
+        WebElement textarea = domWaiter.await(driver, "promptTextarea", PROMPT_TEXTAREA, ELEMENT_TIMEOUT);
+        if (textarea == null) {
+            log.error("Could not find prompt textarea");
+            return false;
+        }
+
+        textarea.clear();
+        textarea.sendKeys(scene.getVeoPrompt());
+
+        // The button enables once the prompt has been taken in
+        WebElement generateButton = domWaiter.await(driver, "generateButton", GENERATE_BUTTON, ELEMENT_TIMEOUT);
+        if (generateButton == null) {
+            log.error("Could not find generate button");
+            return false;
+        }
+
+        // Clips already on the page belong to earlier scenes
+        domWaiter.markAll(driver, "video", SEEN_ATTRIBUTE, "1");
+        if (session.getMediaCapture() != null) {
+            session.setCaptureMark(session.getMediaCapture().mark());
+        }
+        generateButton.click();
+        log.info("Clicked generate button for scene {}", scene.getSceneNumber());
+        return true;
+    }
+
+    /**
+     * Submit a scene in a new tab of the session and return without waiting for the clip
+     * Flow renders server-side, so several tabs of one browser can have generations in flight
+     * @return The in-flight generation, or null if it could not be submitted
+     */
+    public PendingGeneration submitInNewTab(FlowSession session, Scene scene) {
+        WebDriver driver = session.getDriver();
+        String handle = null;
+        try {
+            driver.switchTo().newWindow(WindowType.TAB);
+            handle = driver.getWindowHandle();
+            // Capture the tab's own traffic, so its clip URL can be found once the page only exposes a blob:
+            if (session.getMediaCapture() != null && !session.getMediaCapture().watch(handle)) {
+                log.warn("Scene {} tab is not captured; its clip will be saved through the download menu",
+                        scene.getSceneNumber());
+            }
+            driver.get(flowUrl);
+            waitForPageReady(session);
+
+            if (!submitPrompt(session, scene)) {
+                closeTab(session, handle);
+                return null;
+            }
+            log.info("Scene {} submitted in tab {} of {}", scene.getSceneNumber(), handle, session.getSessionId());
+            return new PendingGeneration(scene, handle, session.getCaptureMark());
+
+        } catch (Exception e) {
+            log.error("Failed to submit scene {} in new tab: {}", scene.getSceneNumber(), e.getMessage());
+            if (handle != null) {
+                closeTab(session, handle);
+            }
+            return null;
+        }
+    }
+
+    /**
+     * Wait until any in-flight generation finishes, in whatever order they complete
+     * Each tab is watched in turn for a short slice; a generation past the Flow timeout
+     * is returned as finished without a clip
+     * @return The finished generation, or null if none are in flight
+     */
+    public PendingGeneration awaitNextCompleted(FlowSession session, List<PendingGeneration> inFlight) {
+        if (inFlight.isEmpty()) {
+            return null;
+        }
+        WebDriver driver = session.getDriver();
+        Duration slice = Duration.ofMillis(Math.max(250, PIPELINE_CYCLE_MILLIS / inFlight.size()));
+
+        while (true) {
+            long cycleStart = System.currentTimeMillis();
+            for (PendingGeneration pending : inFlight) {
+                if (System.currentTimeMillis() - pending.getSubmittedAt() > timeout) {
+                    log.error("Scene {} timed out after {} seconds", pending.getScene().getSceneNumber(), timeout / 1000);
+                    return pending;
+                }
+                try {
+                    driver.switchTo().window(pending.getWindowHandle());
+                    WebElement videoElement = domWaiter.await(driver, "newVideo", NEW_VIDEO, slice);
+                    if (videoElement != null) {
+                        String clipMarker = "scene-" + pending.getScene().getSceneNumber() + "-"
+                                + UUID.randomUUID().toString().substring(0, 8);
+                        domWaiter.mark(driver, videoElement, CLIP_ATTRIBUTE, clipMarker);
+                        pending.complete(clipMarker, videoElement.getDomProperty("currentSrc"));
+                        log.info("Scene {} finished in tab {} ({})", pending.getScene().getSceneNumber(),
+                                pending.getWindowHandle(), clipMarker);
+                        return pending;
+                    }
+                } catch (NoSuchWindowException e) {
+                    log.error("Tab for scene {} was closed", pending.getScene().getSceneNumber());
+                    return pending;
                 }
-            } catch (Exception e) {
-                log.debug("Selector failed: {}", selector);
             }
+            pauseUntilNextCycle(cycleStart);
         }
+    }
 
-        return null;
+    private void pauseUntilNextCycle(long cycleStart) {
+        long remaining = cycleStart + PIPELINE_MIN_CYCLE_MILLIS - System.currentTimeMillis();
+        if (remaining <= 0) {
+            return;
+        }
+        try {
+            Thread.sleep(remaining);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while waiting for generations", e);
+        }
     }
 
     /**
-     * Find generate button using multiple selectors
+     * Stream a pipelined clip to downloadPath and close its tab
+     * A blob: source is resolved to the clip's real URL from the tab's captured traffic, as in
+     * the sequential path; without capture the tab's download menu is used
+     * @return The source URL of the video, or null on failure
      */
-    private WebElement findGenerateButton() {
-        String[] selectors = {
-                "button:has-text('Tạo')",
-                "button:has-text('arrow_forward')",
-                "button[type='submit']",
-                "button[aria-label*='Generate']"
-        };
-
-        for (String selector : selectors) {
-            try {
-                WebElement element = driver.findElement(By.cssSelector(selector));
-                if (element.isDisplayed() && element.isEnabled()) {
-                    log.debug("Found generate button with selector: {}", selector);
-                    return element;
+    public String downloadPipelinedVideo(FlowSession session, PendingGeneration pending, String downloadPath) {
+        Scene scene = pending.getScene();
+        String videoUrl = pending.getVideoUrl();
+        try {
+            if (videoUrl != null && videoUrl.startsWith("http")) {
+                Map<String, String> headers = buildReplayHeaders(session.getDriver(), videoUrl, Map.of());
+                headers.put("Referer", flowUrl);
+                MediaDownloader.DownloadResult result = mediaDownloader.download(videoUrl, Paths.get(downloadPath), headers);
+
+                log.info("Video downloaded for scene {} ({} bytes)", scene.getSceneNumber(), result.getSize());
+                return videoUrl;
+            }
+
+            if (session.getMediaCapture() != null) {
+                FlowMediaCapture.CapturedMedia media = session.getMediaCapture().awaitMediaSince(
+                        pending.getCaptureMark(), pending.getWindowHandle(), Duration.ofMillis(captureTimeout));
+                if (media != null) {
+                    log.info("Captured video URL for scene {}: {}", scene.getSceneNumber(), media.getUrl());
+                    MediaDownloader.DownloadResult result = mediaDownloader.download(
+                            media.getUrl(), Paths.get(downloadPath),
+                            buildReplayHeaders(session.getDriver(), media.getUrl(), media.getRequestHeaders()));
+
+                    log.info("Video downloaded for scene {} ({} bytes)", scene.getSceneNumber(), result.getSize());
+                    return media.getUrl();
                 }
-            } catch (Exception e) {
-                log.debug("Selector failed: {}", selector);
+                log.warn("No video response captured in tab of scene {}; using the download menu", scene.getSceneNumber());
             }
+
+            session.getDriver().switchTo().window(pending.getWindowHandle());
+            session.setClipMarker(pending.getClipMarker());
+            return downloadVideoFromUi(session, scene, downloadPath);
+
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            log.error("Interrupted while waiting for video of scene {}", scene.getSceneNumber());
+            return null;
+        } catch (Exception e) {
+            log.error("Failed to download video for scene {}: {}", pending.getScene().getSceneNumber(), e.getMessage());
+            return null;
+        } finally {
+            closeTab(session, pending.getWindowHandle());
         }
+    }
 
-        return null;
+    /**
+     * Close a pipeline tab and return to the session's main tab
+     */
+    public void closeTab(FlowSession session, String windowHandle) {
+        WebDriver driver = session.getDriver();
+        try {
+            if (!windowHandle.equals(session.getMainWindowHandle()) && driver.getWindowHandles().contains(windowHandle)) {
+                driver.switchTo().window(windowHandle).close();
+            }
+            driver.switchTo().window(session.getMainWindowHandle());
+        } catch (Exception e) {
+            log.warn("Failed to close tab {} of {}: {}", windowHandle, session.getSessionId(), e.getMessage());
+        }
     }
 
     /**
-     * Wait for video generation to complete
+     * Wait for the scene's clip to appear and tag it so later steps find this exact element
      */
-    private boolean waitForVideoGeneration() {
+    private boolean waitForVideoGeneration(FlowSession session, Scene scene) {
         log.info("Waiting for video generation (max {} seconds)...", timeout / 1000);
 
         try {
-            // Wait for video element to appear
-            WebElement videoElement = wait.until(
-                    ExpectedConditions.presenceOfElementLocated(By.tagName("video"))
-            );
-
-            if (videoElement != null) {
-                log.info("Video generation completed successfully");
-                Thread.sleep(2000); // Wait for video to fully load
-                return true;
+            WebElement videoElement = domWaiter.await(session.getDriver(), "newVideo", NEW_VIDEO, Duration.ofMillis(timeout));
+            if (videoElement == null) {
+                log.error("Video generation timed out after {} seconds", timeout / 1000);
+                return false;
             }
 
-        } catch (TimeoutException e) {
-            log.error("Video generation timed out after {} seconds", timeout / 1000);
+            String clipMarker = "scene-" + scene.getSceneNumber() + "-" + UUID.randomUUID().toString().substring(0, 8);
+            domWaiter.mark(session.getDriver(), videoElement, CLIP_ATTRIBUTE, clipMarker);
+            session.setClipMarker(clipMarker);
+
+            log.info("Video generation completed successfully ({})", clipMarker);
+            return true;
+
         } catch (Exception e) {
             log.error("Error waiting for video: {}", e.getMessage());
         }
@@ -239,14 +482,91 @@ public class FlowAutomation {
     }
 
     /**
-     * Download video from UI
+     * Save the generated video to downloadPath
+     * With DevTools capture the clip's own network request is replayed straight to disk,
+     * otherwise the UI download menu is used
+     * @return The source URL of the video, or null on failure
      */
-    public String downloadVideo(Scene scene, String downloadPath) {
+    public String downloadVideo(FlowSession session, Scene scene, String downloadPath) {
+        if (session.getMediaCapture() != null) {
+            return downloadCapturedVideo(session, scene, downloadPath);
+        }
+        return downloadVideoFromUi(session, scene, downloadPath);
+    }
+
+    /**
+     * Stream the video response captured after the scene was submitted to the target file
+     */
+    private String downloadCapturedVideo(FlowSession session, Scene scene, String downloadPath) {
+        try {
+            FlowMediaCapture.CapturedMedia media = session.getMediaCapture()
+                    .awaitMediaSince(session.getCaptureMark(), Duration.ofMillis(captureTimeout));
+            if (media == null) {
+                log.error("No video response captured for scene {} within {}ms", scene.getSceneNumber(), captureTimeout);
+                return null;
+            }
+
+            log.info("Captured video URL for scene {}: {}", scene.getSceneNumber(), media.getUrl());
+
+            MediaDownloader.DownloadResult result = mediaDownloader.download(
+                    media.getUrl(), Paths.get(downloadPath),
+                    buildReplayHeaders(session.getDriver(), media.getUrl(), media.getRequestHeaders()));
+
+            log.info("Video downloaded for scene {} ({} bytes)", scene.getSceneNumber(), result.getSize());
+            return media.getUrl();
+
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            log.error("Interrupted while waiting for video of scene {}", scene.getSceneNumber());
+            return null;
+        } catch (Exception e) {
+            log.error("Failed to download captured video for scene {}: {}", scene.getSceneNumber(), e.getMessage());
+            return null;
+        }
+    }
+
+    /**
+     * Headers the browser sent for the clip, plus its cookies for the clip's host
+     * Range is dropped so the whole file is fetched, not the slice the player asked for
+     */
+    private Map<String, String> buildReplayHeaders(WebDriver driver, String url, Map<String, String> requestHeaders) {
+        Map<String, String> headers = new HashMap<>();
+        requestHeaders.forEach((name, value) -> {
+            if (!name.equalsIgnoreCase("range") && !name.equalsIgnoreCase("accept-encoding")) {
+                headers.put(name, value);
+            }
+        });
+
+        String host = URI.create(url).getHost();
+        StringBuilder cookieHeader = new StringBuilder();
+        for (Cookie cookie : driver.manage().getCookies()) {
+            String domain = cookie.getDomain() != null ? cookie.getDomain().replaceFirst("^\\.", "") : "";
+            if (host != null && (host.equals(domain) || host.endsWith("." + domain))) {
+                if (cookieHeader.length() > 0) {
+                    cookieHeader.append("; ");
+                }
+                cookieHeader.append(cookie.getName()).append('=').append(cookie.getValue());
+            }
+        }
+        if (cookieHeader.length() > 0) {
+            headers.put("Cookie", cookieHeader.toString());
+        }
+        return headers;
+    }
+
+    /**
+     * Save the tagged clip to downloadPath without DevTools
+     * An http(s) source is fetched with the browser's cookies; a blob: source only exists inside
+     * the page, so the download menu saves it and the file is moved over once the browser finishes
+     */
+    private String downloadVideoFromUi(FlowSession session, Scene scene, String downloadPath) {
+        WebDriver driver = session.getDriver();
         try {
             log.info("Downloading video for scene {}", scene.getSceneNumber());
 
-            // Find video element
-            WebElement videoElement = driver.findElement(By.tagName("video"));
+            // The clip tagged when generation finished, not whichever video comes first
+            WebElement videoElement = driver.findElement(
+                    By.cssSelector("video[" + CLIP_ATTRIBUTE + "='" + session.getClipMarker() + "']"));
             String videoUrl = videoElement.getAttribute("src");
 
             if (videoUrl == null || videoUrl.isEmpty()) {
@@ -255,16 +575,37 @@ public class FlowAutomation {
             }
 
             log.info("Found video URL: {}", videoUrl);
+            Path target = Paths.get(downloadPath);
+
+            if (videoUrl.startsWith("http")) {
+                Map<String, String> headers = buildReplayHeaders(driver, videoUrl, Map.of());
+                headers.put("Referer", flowUrl);
+                MediaDownloader.DownloadResult result = mediaDownloader.download(videoUrl, target, headers);
+                log.info("Video downloaded for scene {} ({} bytes)", scene.getSceneNumber(), result.getSize());
+                return videoUrl;
+            }
 
-            // Click download button (three-dot menu)
-            clickDownloadButton();
+            Set<String> existing = listDownloads(session.getDownloadDir());
 
-            // Wait for download to complete
-            Thread.sleep(5000);
+            // Click download button (three-dot menu); the browser saves into the session's download directory
+            if (!clickDownloadButton(driver)) {
+                return null;
+            }
+
+            Path saved = awaitBrowserDownload(session.getDownloadDir(), existing);
+            if (saved == null) {
+                log.error("Browser download of scene {} did not finish within {}ms", scene.getSceneNumber(), uiDownloadTimeout);
+                return null;
+            }
+            mediaDownloader.moveIntoPlace(saved, target);
 
-            log.info("Video downloaded successfully for scene {}", scene.getSceneNumber());
+            log.info("Video downloaded for scene {} ({} bytes)", scene.getSceneNumber(), Files.size(target));
             return videoUrl;
 
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            log.error("Interrupted while downloading video of scene {}", scene.getSceneNumber());
+            return null;
         } catch (Exception e) {
             log.error("Failed to download video for scene {}: {}", scene.getSceneNumber(), e.getMessage());
             return null;
@@ -272,41 +613,89 @@ public class FlowAutomation {
     }
 
     /**
-     * Click download button
+     * Wait for a file the browser finished saving that was not there before
+     * Chrome writes to a .crdownload file and renames it at the end; the size must also hold
+     * still for one poll
+     * @return The saved file, or null if none finished in time
      */
-    private void clickDownloadButton() {
+    private Path awaitBrowserDownload(Path dir, Set<String> existing) throws IOException, InterruptedException {
+        long deadline = System.currentTimeMillis() + uiDownloadTimeout;
+        Path candidate = null;
+        long lastSize = -1;
+        while (System.currentTimeMillis() < deadline) {
+            Thread.sleep(DOWNLOAD_POLL_MILLIS);
+
+            Set<String> current = listDownloads(dir);
+            boolean inProgress = current.stream().anyMatch(name -> name.endsWith(".crdownload") || name.endsWith(".tmp"));
+            Optional<String> added = current.stream()
+                    .filter(name -> !existing.contains(name))
+                    .filter(name -> !name.endsWith(".crdownload") && !name.endsWith(".tmp"))
+                    .findFirst();
+            if (inProgress || added.isEmpty()) {
+                continue;
+            }
+
+            Path file = dir.resolve(added.get());
+            long size = Files.size(file);
+            if (file.equals(candidate) && size == lastSize && size > 0) {
+                return file;
+            }
+            candidate = file;
+            lastSize = size;
+        }
+        return null;
+    }
+
+    private static Set<String> listDownloads(Path dir) throws IOException {
+        Set<String> names = new HashSet<>();
+        if (dir == null || !Files.isDirectory(dir)) {
+            return names;
+        }
+        try (Stream<Path> files = Files.list(dir)) {
+            files.forEach(file -> names.add(file.getFileName().toString()));
+        }
+        return names;
+    }
+
+    /**
+     * Click download button, waiting for each menu level to open
+     */
+    private boolean clickDownloadButton(WebDriver driver) {
         try {
-            // Find three-dot menu button
-            WebElement menuButton = driver.findElement(
-                    By.cssSelector("button:has-text('more_vert')")
-            );
+            WebElement menuButton = domWaiter.await(driver, "moreMenuButton", MORE_MENU_BUTTON, ELEMENT_TIMEOUT);
+            if (menuButton == null) {
+                log.warn("Could not find video menu button");
+                return false;
+            }
             menuButton.click();
-            Thread.sleep(1000);
 
-            // Find download option
-            WebElement downloadOption = driver.findElement(
-                    By.cssSelector("div[role='menuitem']:has-text('Tải xuống')")
-            );
+            WebElement downloadOption = domWaiter.await(driver, "downloadMenuItem", DOWNLOAD_MENU_ITEM, ELEMENT_TIMEOUT);
+            if (downloadOption == null) {
+                log.warn("Could not find download menu item");
+                return false;
+            }
             downloadOption.click();
-            Thread.sleep(1000);
 
-            // Select 1080p quality
-            WebElement quality1080p = driver.findElement(
-                    By.cssSelector("div:has-text('1080p')")
-            );
+            WebElement quality1080p = domWaiter.await(driver, "quality1080p", QUALITY_1080P, ELEMENT_TIMEOUT);
+            if (quality1080p == null) {
+                log.warn("Could not find 1080p option");
+                return false;
+            }
             quality1080p.click();
+            return true;
 
         } catch (Exception e) {
             log.warn("Could not click download button: {}", e.getMessage());
+            return false;
         }
     }
 
     /**
      * Take screenshot for debugging
      */
-    public void takeScreenshot(String filename) {
+    public void takeScreenshot(FlowSession session, String filename) {
         try {
-            TakesScreenshot screenshot = (TakesScreenshot) driver;
+            TakesScreenshot screenshot = (TakesScreenshot) session.getDriver();
             byte[] screenshotBytes = screenshot.getScreenshotAs(OutputType.BYTES);
 
             java.nio.file.Files.write(
@@ -323,17 +712,78 @@ public class FlowAutomation {
     /**
      * Close browser
      */
-    public void closeBrowser() {
-        if (driver != null) {
-            driver.quit();
-            log.info("Browser closed");
+    public void closeBrowser(FlowSession session) {
+        if (session != null && session.getDriver() != null) {
+            if (session.getMediaCapture() != null) {
+                session.getMediaCapture().close();
+            }
+            try {
+                session.getDriver().quit();
+                log.info("Browser closed: {}", session.getSessionId());
+            } catch (Exception e) {
+                log.warn("Failed to close browser {}: {}", session.getSessionId(), e.getMessage());
+            }
+            deleteDownloadDir(session);
+        }
+    }
+
+    /**
+     * Remove whatever the browser left in its download directory, e.g. a file it never finished
+     */
+    private void deleteDownloadDir(FlowSession session) {
+        Path dir = session.getDownloadDir();
+        if (dir == null || !Files.isDirectory(dir)) {
+            return;
+        }
+        try (Stream<Path> files = Files.list(dir)) {
+            for (Path file : (Iterable<Path>) files::iterator) {
+                Files.deleteIfExists(file);
+            }
+            Files.deleteIfExists(dir);
+        } catch (IOException e) {
+            log.debug("Failed to clean up {}: {}", dir, e.getMessage());
         }
     }
 
     /**
      * Get current page source for debugging
      */
-    public String getPageSource() {
-        return driver != null ? driver.getPageSource() : "";
+    public String getPageSource(FlowSession session) {
+        return session != null && session.getDriver() != null ? session.getDriver().getPageSource() : "";
+    }
+
+    /**
+     * A scene submitted in its own tab whose clip has not been collected yet
+     */
+    public static class PendingGeneration {
+        private final Scene scene;
+        private final String windowHandle;
+        private final long submittedAt;
+        private final long captureMark;
+        private volatile String clipMarker;
+        private volatile String videoUrl;
+
+        public PendingGeneration(Scene scene, String windowHandle, long captureMark) {
+            this.scene = scene;
+            this.windowHandle = windowHandle;
+            this.captureMark = captureMark;
+            this.submittedAt = System.currentTimeMillis();
+        }
+
+        void complete(String clipMarker, String videoUrl) {
+            this.clipMarker = clipMarker;
+            this.videoUrl = videoUrl;
+        }
+
+        public Scene getScene() { return scene; }
+        public String getWindowHandle() { return windowHandle; }
+        public long getSubmittedAt() { return submittedAt; }
+        /** Capture position when the prompt was submitted; later responses of the tab belong to this clip */
+        public long getCaptureMark() { return captureMark; }
+        public String getClipMarker() { return clipMarker; }
+        public String getVideoUrl() { return videoUrl; }
+
+        /** True once the clip appeared; false for timed-out or lost tabs */
+        public boolean isCompleted() { return clipMarker != null; }
     }
 }
@@ -0,0 +1,187 @@
+package com.veo2.integration;
+
+import org.openqa.selenium.JavascriptException;
+import org.openqa.selenium.JavascriptExecutor;
+import org.openqa.selenium.ScriptTimeoutException;
+import org.openqa.selenium.StaleElementReferenceException;
+import org.openqa.selenium.WebDriver;
+import org.openqa.selenium.WebDriverException;
+import org.openqa.selenium.WebElement;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Finds Flow page elements and waits for them with a MutationObserver in the page,
+ * so a wait returns as soon as the element appears instead of after a fixed sleep
+ * Selectors are plain CSS, or XPath when prefixed with "xpath:"; the one that matched
+ * last for each logical element is tried first next time
+ */
+@Component
+public class FlowDomWaiter {
+
+    private static final Logger log = LoggerFactory.getLogger(FlowDomWaiter.class);
+
+    /** Longest single in-page wait; longer waits are split so the script timeout is never hit */
+    public static final long SLICE_MILLIS = 20000;
+
+    /** Script timeout the browser needs for one slice */
+    public static final Duration SCRIPT_TIMEOUT = Duration.ofMillis(SLICE_MILLIS + 10000);
+
+    private static final String XPATH_PREFIX = "xpath:";
+
+    private static final String LOOKUP_JS =
+            "var selectors = arguments[0];" +
+            "function lookup() {" +
+            "  for (var i = 0; i < selectors.length; i++) {" +
+            "    var s = selectors[i], el = null;" +
+            "    try {" +
+            "      el = s.indexOf('" + XPATH_PREFIX + "') === 0" +
+            "        ? document.evaluate(s.substring(" + XPATH_PREFIX.length() + "), document, null," +
+            "            XPathResult.FIRST_ORDERED_NODE_TYPE, null).singleNodeValue" +
+            "        : document.querySelector(s);" +
+            "    } catch (e) {}" +
+            "    if (el && el.getClientRects().length > 0) return [i, el];" +
+            "  }" +
+            "  return null;" +
+            "}";
+
+    private static final String FIND_JS = LOOKUP_JS + "return lookup();";
+
+    private static final String AWAIT_JS = LOOKUP_JS +
+            "var done = arguments[arguments.length - 1];" +
+            "var hit = lookup();" +
+            "if (hit) { done(hit); return; }" +
+            "var timer;" +
+            "var observer = new MutationObserver(function() {" +
+            "  var h = lookup();" +
+            "  if (h) { observer.disconnect(); clearTimeout(timer); done(h); }" +
+            "});" +
+            "observer.observe(document, {childList: true, subtree: true, attributes: true});" +
+            "timer = setTimeout(function() { observer.disconnect(); done(null); }, arguments[1]);";
+
+    // Logical element name -> selector that matched last
+    private final Map<String, String> learnedSelectors = new ConcurrentHashMap<>();
+
+    /**
+     * Find a visible element now, without waiting
+     * @return The element, or null if no candidate matches
+     * @throws WebDriverException When the browser or session is gone
+     */
+    public WebElement find(WebDriver driver, String element, List<String> candidates) {
+        List<String> ordered = orderCandidates(element, candidates);
+        try {
+            return resolve(element, ordered, ((JavascriptExecutor) driver).executeScript(FIND_JS, ordered));
+        } catch (WebDriverException e) {
+            if (!isPageError(e)) {
+                throw e;
+            }
+            log.debug("Lookup of {} failed: {}", element, e.getMessage());
+            return null;
+        }
+    }
+
+    /**
+     * Wait for a visible element to appear
+     * @return The element, or null if none of the candidates appeared before the timeout
+     * @throws WebDriverException When the browser or session is gone; only page errors are retried
+     */
+    public WebElement await(WebDriver driver, String element, List<String> candidates, Duration timeout) {
+        List<String> ordered = orderCandidates(element, candidates);
+        long deadline = System.currentTimeMillis() + timeout.toMillis();
+
+        while (true) {
+            long remaining = deadline - System.currentTimeMillis();
+            if (remaining <= 0) {
+                return null;
+            }
+            try {
+                Object hit = ((JavascriptExecutor) driver).executeAsyncScript(
+                        AWAIT_JS, ordered, Math.min(remaining, SLICE_MILLIS));
+                WebElement found = resolve(element, ordered, hit);
+                if (found != null) {
+                    return found;
+                }
+            } catch (WebDriverException e) {
+                if (!isPageError(e)) {
+                    throw e;
+                }
+                // A navigation tears down the observer; start a new one on the new document
+                log.debug("Wait for {} interrupted: {}", element, e.getMessage());
+                if (System.currentTimeMillis() < deadline) {
+                    pauseBeforeRetry();
+                }
+            }
+        }
+    }
+
+    /**
+     * Set an attribute on every element matching a CSS selector
+     */
+    public void markAll(WebDriver driver, String cssSelector, String attribute, String value) {
+        ((JavascriptExecutor) driver).executeScript(
+                "var nodes = document.querySelectorAll(arguments[0]);" +
+                "for (var i = 0; i < nodes.length; i++) nodes[i].setAttribute(arguments[1], arguments[2]);",
+                cssSelector, attribute, value);
+    }
+
+    /**
+     * Set an attribute on one element
+     */
+    public void mark(WebDriver driver, WebElement element, String attribute, String value) {
+        ((JavascriptExecutor) driver).executeScript(
+                "arguments[0].setAttribute(arguments[1], arguments[2]);", element, attribute, value);
+    }
+
+    private List<String> orderCandidates(String element, List<String> candidates) {
+        String learned = learnedSelectors.get(element);
+        if (learned == null || !candidates.contains(learned)) {
+            return candidates;
+        }
+        List<String> ordered = new ArrayList<>(candidates.size());
+        ordered.add(learned);
+        for (String candidate : candidates) {
+            if (!candidate.equals(learned)) {
+                ordered.add(candidate);
+            }
+        }
+        return ordered;
+    }
+
+    private WebElement resolve(String element, List<String> ordered, Object hit) {
+        if (!(hit instanceof List) || ((List<?>) hit).size() < 2) {
+            return null;
+        }
+        List<?> result = (List<?>) hit;
+        String selector = ordered.get(((Number) result.get(0)).intValue());
+        if (!selector.equals(learnedSelectors.put(element, selector))) {
+            log.debug("Learned selector for {}: {}", element, selector);
+        }
+        return (WebElement) result.get(1);
+    }
+
+    /**
+     * Whether a failure came from the page, e.g. a navigation during the script or a replaced
+     * node, rather than from a lost session or browser, which no retry can fix
+     */
+    private static boolean isPageError(WebDriverException e) {
+        return e instanceof JavascriptException
+                || e instanceof StaleElementReferenceException
+                || e instanceof ScriptTimeoutException;
+    }
+
+    private void pauseBeforeRetry() {
+        try {
+            Thread.sleep(250);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while waiting for page element", e);
+        }
+    }
+}
@@ -0,0 +1,280 @@
+package com.veo2.integration;
+
+import org.openqa.selenium.devtools.Command;
+import org.openqa.selenium.devtools.DevTools;
+import org.openqa.selenium.devtools.Event;
+import org.openqa.selenium.devtools.HasDevTools;
+import org.openqa.selenium.WebDriver;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Watches a browser's network traffic through the Chrome DevTools Protocol
+ * and records every video response, so generated clips can be fetched directly
+ * instead of through the download menu
+ */
+public class FlowMediaCapture {
+
+    private static final Logger log = LoggerFactory.getLogger(FlowMediaCapture.class);
+
+    // Requests are remembered until their response arrives or they fail; the oldest are
+    // dropped past this many, e.g. requests the page cancelled without either event
+    private static final int MAX_PENDING_REQUESTS = 500;
+    // Only responses after the current scene's marker are looked at, so older ones can go
+    private static final int MAX_CAPTURED = 100;
+    private static final int MAX_SEEN_URLS = 1000;
+
+    private final DevTools devTools;
+    private final Map<String, Map<String, String>> requestHeaders = Collections.synchronizedMap(
+            new LinkedHashMap<>() {
+                @Override
+                protected boolean removeEldestEntry(Map.Entry<String, Map<String, String>> eldest) {
+                    return size() > MAX_PENDING_REQUESTS;
+                }
+            });
+    private final List<CapturedMedia> captured = new ArrayList<>();
+    private final Set<String> seenUrls = new LinkedHashSet<>();
+    private final ReentrantLock lock = new ReentrantLock();
+    private final Condition mediaArrived = lock.newCondition();
+    private long sequence;
+
+    private FlowMediaCapture(DevTools devTools) {
+        this.devTools = devTools;
+    }
+
+    /**
+     * Attach to a browser, or return null if it does not speak CDP
+     */
+    @SuppressWarnings("unchecked")
+    public static FlowMediaCapture attach(WebDriver driver) {
+        if (!(driver instanceof HasDevTools)) {
+            return null;
+        }
+        try {
+            DevTools devTools = ((HasDevTools) driver).getDevTools();
+            devTools.createSessionIfThereIsNotOne();
+
+            FlowMediaCapture capture = new FlowMediaCapture(devTools);
+
+            // Raw CDP commands and events keep this independent of the Chrome version
+            devTools.addListener(new Event<>("Network.requestWillBeSent", input -> (Map<String, Object>) input.read(Map.class)),
+                    capture::onRequest);
+            devTools.addListener(new Event<>("Network.responseReceived", input -> (Map<String, Object>) input.read(Map.class)),
+                    capture::onResponse);
+            devTools.addListener(new Event<>("Network.loadingFailed", input -> (Map<String, Object>) input.read(Map.class)),
+                    capture::onLoadingFailed);
+            devTools.send(new Command<>("Network.enable", Map.of()));
+
+            return capture;
+        } catch (Exception e) {
+            log.warn("DevTools capture unavailable: {}", e.getMessage());
+            return null;
+        }
+    }
+
+    /**
+     * Marker for "everything captured from now on"
+     */
+    public long mark() {
+        lock.lock();
+        try {
+            return sequence;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Also capture the network traffic of another tab
+     * Selenium attaches each new DevTools session from the one it attached last; once that
+     * tab has closed, the stale session is dropped and the new one attached from the browser.
+     * Sessions attached earlier stay attached, so tabs already watched keep being captured
+     * @return Whether the tab is being captured
+     */
+    public boolean watch(String windowHandle) {
+        try {
+            enableNetwork(windowHandle);
+            return true;
+        } catch (RuntimeException first) {
+            try {
+                devTools.disconnectSession();
+                enableNetwork(windowHandle);
+                return true;
+            } catch (RuntimeException e) {
+                log.warn("Cannot capture tab {}: {}", windowHandle, e.getMessage());
+                return false;
+            }
+        }
+    }
+
+    private void enableNetwork(String windowHandle) {
+        devTools.createSession(windowHandle);
+        devTools.send(new Command<>("Network.enable", Map.of()));
+    }
+
+    /**
+     * Wait for the first video response seen after a marker whose URL was not captured before
+     * @return The captured media, or null if none arrived in time
+     */
+    public CapturedMedia awaitMediaSince(long marker, Duration timeout) throws InterruptedException {
+        return awaitMediaSince(marker, null, timeout);
+    }
+
+    /**
+     * Wait for the first new video response after a marker loaded by one tab's page
+     * @param windowHandle Tab whose main frame made the request, or null for any tab
+     * @return The captured media, or null if none arrived in time
+     */
+    public CapturedMedia awaitMediaSince(long marker, String windowHandle, Duration timeout) throws InterruptedException {
+        long remaining = timeout.toNanos();
+        lock.lock();
+        try {
+            while (true) {
+                for (CapturedMedia media : captured) {
+                    if (media.getSequence() > marker && media.isFirstSeen()
+                            && (windowHandle == null || media.isFromWindow(windowHandle))) {
+                        return media;
+                    }
+                }
+                if (remaining <= 0) {
+                    return null;
+                }
+                remaining = mediaArrived.awaitNanos(remaining);
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Forget captured responses, used when a session is handed to another job
+     */
+    public void reset() {
+        lock.lock();
+        try {
+            captured.clear();
+            requestHeaders.clear();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public void close() {
+        try {
+            devTools.clearListeners();
+            devTools.close();
+        } catch (Exception e) {
+            log.debug("Failed to close DevTools session: {}", e.getMessage());
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    private void onRequest(Map<String, Object> params) {
+        Object request = params.get("request");
+        if (!(request instanceof Map)) {
+            return;
+        }
+        Object headers = ((Map<String, Object>) request).get("headers");
+        if (headers instanceof Map) {
+            Map<String, String> copy = new HashMap<>();
+            ((Map<String, Object>) headers).forEach((name, value) -> copy.put(name, String.valueOf(value)));
+            requestHeaders.put(String.valueOf(params.get("requestId")), copy);
+        }
+    }
+
+    private void onLoadingFailed(Map<String, Object> params) {
+        requestHeaders.remove(String.valueOf(params.get("requestId")));
+    }
+
+    @SuppressWarnings("unchecked")
+    private void onResponse(Map<String, Object> params) {
+        String requestId = String.valueOf(params.get("requestId"));
+        Map<String, String> headers = requestHeaders.remove(requestId);
+
+        Object response = params.get("response");
+        if (!(response instanceof Map)) {
+            return;
+        }
+        Map<String, Object> responseData = (Map<String, Object>) response;
+        String url = String.valueOf(responseData.get("url"));
+        String mimeType = String.valueOf(responseData.get("mimeType"));
+        boolean isVideo = "Media".equals(params.get("type")) || mimeType.startsWith("video/");
+        if (!isVideo || !url.startsWith("http")) {
+            return;
+        }
+
+        lock.lock();
+        try {
+            boolean firstSeen = seenUrls.add(url);
+            Object frameId = params.get("frameId");
+            captured.add(new CapturedMedia(++sequence, url, mimeType, headers != null ? headers : Map.of(), firstSeen,
+                    frameId != null ? String.valueOf(frameId) : null));
+            trim();
+            mediaArrived.signalAll();
+        } finally {
+            lock.unlock();
+        }
+        log.debug("Captured video response: {} ({})", url, mimeType);
+    }
+
+    /**
+     * Drop the oldest captured responses and URLs past their limits; called holding the lock
+     */
+    private void trim() {
+        if (captured.size() > MAX_CAPTURED) {
+            captured.subList(0, captured.size() - MAX_CAPTURED).clear();
+        }
+        Iterator<String> oldest = seenUrls.iterator();
+        while (seenUrls.size() > MAX_SEEN_URLS && oldest.hasNext()) {
+            oldest.next();
+            oldest.remove();
+        }
+    }
+
+    public static class CapturedMedia {
+        private final long sequence;
+        private final String url;
+        private final String mimeType;
+        private final Map<String, String> requestHeaders;
+        private final boolean firstSeen;
+        private final String frameId;
+
+        public CapturedMedia(long sequence, String url, String mimeType, Map<String, String> requestHeaders,
+                             boolean firstSeen, String frameId) {
+            this.sequence = sequence;
+            this.url = url;
+            this.mimeType = mimeType;
+            this.requestHeaders = requestHeaders;
+            this.firstSeen = firstSeen;
+            this.frameId = frameId;
+        }
+
+        public long getSequence() { return sequence; }
+        public String getUrl() { return url; }
+        public String getMimeType() { return mimeType; }
+        public Map<String, String> getRequestHeaders() { return requestHeaders; }
+        public boolean isFirstSeen() { return firstSeen; }
+        public String getFrameId() { return frameId; }
+
+        /**
+         * Whether the request came from a tab's main frame, whose frame id is the tab's target id
+         * that chromedriver window handles are built from
+         */
+        public boolean isFromWindow(String windowHandle) {
+            return frameId != null && !frameId.isEmpty() && windowHandle.contains(frameId);
+        }
+    }
+}
@@ -0,0 +1,63 @@
+package com.veo2.integration;
+
+import org.openqa.selenium.WebDriver;
+import org.openqa.selenium.support.ui.WebDriverWait;
+
+import java.nio.file.Path;
+import java.util.UUID;
+
+/**
+ * One authenticated Chrome instance driving Flow
+ * Owned by a single worker at a time
+ */
+public class FlowSession {
+
+    private final String sessionId;
+    private final WebDriver driver;
+    private final WebDriverWait wait;
+    private final long createdAt;
+    private final FlowMediaCapture mediaCapture;
+    private volatile long captureMark;
+    private volatile String clipMarker;
+    private volatile String mainWindowHandle;
+    private volatile Path downloadDir;
+
+    public FlowSession(WebDriver driver, WebDriverWait wait) {
+        this(driver, wait, null);
+    }
+
+    public FlowSession(WebDriver driver, WebDriverWait wait, FlowMediaCapture mediaCapture) {
+        this.sessionId = "flow-" + UUID.randomUUID().toString().substring(0, 8);
+        this.driver = driver;
+        this.wait = wait;
+        this.createdAt = System.currentTimeMillis();
+        this.mediaCapture = mediaCapture;
+    }
+
+    public String getSessionId() { return sessionId; }
+
+    public WebDriver getDriver() { return driver; }
+
+    public WebDriverWait getWait() { return wait; }
+
+    public long getCreatedAt() { return createdAt; }
+
+    /** DevTools network capture, or null when the browser does not support it */
+    public FlowMediaCapture getMediaCapture() { return mediaCapture; }
+
+    /** Capture position recorded just before the current scene was submitted */
+    public long getCaptureMark() { return captureMark; }
+    public void setCaptureMark(long captureMark) { this.captureMark = captureMark; }
+
+    /** Attribute value tagging the video element of the current scene */
+    public String getClipMarker() { return clipMarker; }
+    public void setClipMarker(String clipMarker) { this.clipMarker = clipMarker; }
+
+    /** Tab the session was opened with; pipeline tabs are closed back to it */
+    public String getMainWindowHandle() { return mainWindowHandle; }
+    public void setMainWindowHandle(String mainWindowHandle) { this.mainWindowHandle = mainWindowHandle; }
+
+    /** Directory this browser saves menu downloads to, not shared with other sessions */
+    public Path getDownloadDir() { return downloadDir; }
+    public void setDownloadDir(Path downloadDir) { this.downloadDir = downloadDir; }
+}
@@ -0,0 +1,248 @@
+package com.veo2.integration;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.BlockingDeque;
+import java.util.concurrent.LinkedBlockingDeque;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Pool of authenticated Flow browser sessions
+ * Sessions are created with cookies already loaded, leased to one worker at a time,
+ * health-checked on return and reused, so jobs skip Chrome startup and login
+ */
+@Component
+public class FlowSessionPool {
+
+    private static final Logger log = LoggerFactory.getLogger(FlowSessionPool.class);
+
+    @Autowired
+    private FlowAutomation flowAutomation;
+
+    @Value("${veo2.browser.pool.min-size:1}")
+    private int minSize;
+
+    @Value("${veo2.browser.pool.max-size:3}")
+    private int maxSize;
+
+    @Value("${veo2.browser.pool.lease-timeout:600000}")
+    private long leaseTimeout;
+
+    @Value("${veo2.browser.pool.max-session-age:3600000}")
+    private long maxSessionAge;
+
+    private final BlockingDeque<FlowSession> idle = new LinkedBlockingDeque<>();
+    private final AtomicInteger total = new AtomicInteger();
+    // Signalled whenever a session goes idle or a slot frees up, so waiting leases can retry
+    private final Lock availableLock = new ReentrantLock();
+    private final Condition available = availableLock.newCondition();
+    private volatile boolean shutdown;
+
+    public FlowSessionPool(MeterRegistry registry) {
+        Gauge.builder("veo2.browser.sessions.idle", idle, BlockingDeque::size)
+                .description("Authenticated browser sessions waiting for a job")
+                .register(registry);
+        Gauge.builder("veo2.browser.sessions.total", total, AtomicInteger::get)
+                .description("Browser sessions open, idle or leased")
+                .register(registry);
+    }
+
+    /**
+     * Warm the pool up to its minimum size in the background once the app is up
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void prewarm() {
+        if (minSize <= 0) {
+            return;
+        }
+        Thread warmer = new Thread(this::fillToMinimum, "veo2-browser-prewarm");
+        warmer.setDaemon(true);
+        warmer.start();
+    }
+
+    /**
+     * Lease a session, waiting up to the configured lease timeout
+     */
+    public FlowSession lease() throws TimeoutException {
+        return lease(leaseTimeout);
+    }
+
+    /**
+     * Lease a session
+     * @param timeoutMillis How long to wait for a free session when the pool is at its maximum
+     * @throws TimeoutException if no session became available in time
+     * @throws IllegalStateException if a new session could not log in to Flow
+     */
+    public FlowSession lease(long timeoutMillis) throws TimeoutException {
+        long deadline = System.currentTimeMillis() + timeoutMillis;
+
+        while (!shutdown) {
+            FlowSession session = idle.pollFirst();
+            if (session != null) {
+                if (isReusable(session)) {
+                    log.debug("Leased browser session {}", session.getSessionId());
+                    return session;
+                }
+                destroy(session);
+                continue;
+            }
+
+            if (tryReserveSlot()) {
+                return createOrRelease();
+            }
+
+            long remaining = deadline - System.currentTimeMillis();
+            if (remaining <= 0) {
+                throw new TimeoutException("No browser session available after " + timeoutMillis + "ms");
+            }
+            availableLock.lock();
+            try {
+                // Checked under the lock, so a release or destroy after this check still wakes us
+                if (!shutdown && idle.isEmpty() && total.get() >= maxSize) {
+                    available.await(remaining, TimeUnit.MILLISECONDS);
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new IllegalStateException("Interrupted while waiting for a browser session", e);
+            } finally {
+                availableLock.unlock();
+            }
+        }
+
+        throw new IllegalStateException("Browser session pool is shut down");
+    }
+
+    /**
+     * Return a leased session; unhealthy or expired sessions are closed instead of reused
+     */
+    public void release(FlowSession session) {
+        if (session == null) {
+            return;
+        }
+        if (shutdown || !flowAutomation.resetSession(session) || isExpired(session)) {
+            destroy(session);
+            if (!shutdown) {
+                prewarm();
+            }
+            return;
+        }
+        // Most recently used first, so warm sessions are reused and cold ones age out
+        idle.offerFirst(session);
+        signalAvailable();
+        log.debug("Browser session {} returned to pool ({} idle)", session.getSessionId(), idle.size());
+    }
+
+    /**
+     * Close a session that is known to be broken
+     */
+    public void invalidate(FlowSession session) {
+        if (session != null) {
+            destroy(session);
+        }
+    }
+
+    public int getIdleCount() {
+        return idle.size();
+    }
+
+    public int getTotalCount() {
+        return total.get();
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        shutdown = true;
+        FlowSession session;
+        while ((session = idle.pollFirst()) != null) {
+            destroy(session);
+        }
+        signalAvailable();
+        log.info("Browser session pool closed");
+    }
+
+    private void fillToMinimum() {
+        while (!shutdown && total.get() < minSize && tryReserveSlot()) {
+            try {
+                FlowSession session = createOrRelease();
+                idle.offerLast(session);
+                signalAvailable();
+                log.info("Pre-warmed browser session {} ({} open)", session.getSessionId(), total.get());
+            } catch (Exception e) {
+                log.warn("Failed to pre-warm browser session: {}", e.getMessage());
+                return;
+            }
+        }
+    }
+
+    private boolean tryReserveSlot() {
+        while (true) {
+            int current = total.get();
+            if (current >= maxSize) {
+                return false;
+            }
+            if (total.compareAndSet(current, current + 1)) {
+                return true;
+            }
+        }
+    }
+
+    /**
+     * Create a new authenticated session in a slot that was already reserved
+     */
+    private FlowSession createOrRelease() {
+        FlowSession session = null;
+        try {
+            session = flowAutomation.initializeBrowser();
+            if (!flowAutomation.loadCookiesAndNavigate(session)) {
+                throw new IllegalStateException("Failed to authenticate with Flow");
+            }
+            return session;
+        } catch (RuntimeException e) {
+            flowAutomation.closeBrowser(session);
+            total.decrementAndGet();
+            signalAvailable();
+            throw e;
+        }
+    }
+
+    private boolean isReusable(FlowSession session) {
+        return !isExpired(session) && flowAutomation.isHealthy(session);
+    }
+
+    private boolean isExpired(FlowSession session) {
+        return System.currentTimeMillis() - session.getCreatedAt() > maxSessionAge;
+    }
+
+    private void destroy(FlowSession session) {
+        flowAutomation.closeBrowser(session);
+        total.decrementAndGet();
+        signalAvailable();
+        log.info("Browser session {} discarded ({} open)", session.getSessionId(), total.get());
+    }
+
+    /**
+     * Wake every waiting lease; each rechecks the idle sessions and free slots itself
+     */
+    private void signalAvailable() {
+        availableLock.lock();
+        try {
+            available.signalAll();
+        } finally {
+            availableLock.unlock();
+        }
+    }
+}
@@ -0,0 +1,301 @@
+package com.veo2.integration;
+
+import okhttp3.OkHttpClient;
+import okhttp3.Request;
+import okhttp3.Response;
+import okhttp3.ResponseBody;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Base64;
+import java.util.HexFormat;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Streams media files to disk
+ * Bodies are copied through a fixed-size buffer into a .partial file, interrupted transfers
+ * resume with HTTP Range requests, and the finished file is verified and then renamed into
+ * place atomically so readers never see a partial clip
+ * Files with neither a known length nor a checksum are probed with ffprobe instead
+ */
+@Component
+public class MediaDownloader {
+
+    private static final Logger log = LoggerFactory.getLogger(MediaDownloader.class);
+
+    private static final String PARTIAL_DIR = ".partial";
+    private static final Pattern CONTENT_RANGE = Pattern.compile("bytes (\\d+)-(\\d+)/(\\d+|\\*)");
+    private static final Pattern UNSATISFIED_RANGE = Pattern.compile("bytes \\*/(\\d+)");
+    private static final Pattern GOOG_MD5 = Pattern.compile("md5=([A-Za-z0-9+/=]+)");
+
+    @Value("${veo2.download.buffer-size:65536}")
+    private int bufferSize;
+
+    @Value("${veo2.download.max-retries:5}")
+    private int maxRetries;
+
+    @Value("${veo2.download.retry-delay:1000}")
+    private long retryDelay;
+
+    @Autowired
+    private FFmpegProcessor ffmpegProcessor;
+
+    private final OkHttpClient httpClient;
+
+    public MediaDownloader() {
+        this.httpClient = new OkHttpClient.Builder()
+                .connectTimeout(30, TimeUnit.SECONDS)
+                .readTimeout(120, TimeUnit.SECONDS)
+                .retryOnConnectionFailure(true)
+                .build();
+    }
+
+    /**
+     * Download a URL to a file
+     * @param url Source URL
+     * @param target Final file, only created once the download is complete and verified
+     * @param headers Extra request headers (cookies, auth), may be empty
+     * @return Size and checksum of the saved file
+     */
+    public DownloadResult download(String url, Path target, Map<String, String> headers) throws IOException {
+        Path partial = partialPath(target);
+        Files.createDirectories(partial.getParent());
+
+        long expectedSize = -1;
+        String expectedMd5 = null;
+        IOException lastError = null;
+
+        for (int attempt = 0; attempt <= maxRetries; attempt++) {
+            if (attempt > 0) {
+                sleepBeforeRetry(attempt);
+            }
+
+            long existing = Files.exists(partial) ? Files.size(partial) : 0;
+            if (expectedSize >= 0 && existing == expectedSize) {
+                lastError = null;
+                break;
+            }
+
+            Request.Builder requestBuilder = new Request.Builder().url(url).get();
+            headers.forEach(requestBuilder::header);
+            if (existing > 0) {
+                requestBuilder.header("Range", "bytes=" + existing + "-");
+            }
+
+            try (Response response = httpClient.newCall(requestBuilder.build()).execute()) {
+                if (response.code() == 416 && existing > 0) {
+                    Matcher unsatisfied = UNSATISFIED_RANGE.matcher(String.valueOf(response.header("Content-Range")));
+                    if (unsatisfied.matches() && Long.parseLong(unsatisfied.group(1)) == existing) {
+                        log.info("Server reports {} already complete at {} bytes", target.getFileName(), existing);
+                        expectedSize = existing;
+                        lastError = null;
+                        break;
+                    }
+                    // The partial file does not match the resource, e.g. it changed or was cut short
+                    log.warn("Range request for {} at byte {} rejected (Content-Range '{}'), restarting",
+                            target.getFileName(), existing, response.header("Content-Range"));
+                    Files.deleteIfExists(partial);
+                    lastError = new IOException("Range not satisfiable");
+                    continue;
+                }
+                if (!response.isSuccessful()) {
+                    lastError = new IOException("Failed to download video: HTTP " + response.code());
+                    if (!isRetryable(response.code())) {
+                        break;
+                    }
+                    continue;
+                }
+
+                ResponseBody body = response.body();
+                if (body == null) {
+                    lastError = new IOException("Empty response body");
+                    continue;
+                }
+
+                String md5Header = extractMd5(response.header("x-goog-hash"));
+                if (md5Header != null) {
+                    expectedMd5 = md5Header;
+                }
+
+                long offset;
+                if (response.code() == 206) {
+                    Matcher range = CONTENT_RANGE.matcher(String.valueOf(response.header("Content-Range")));
+                    if (!range.matches() || Long.parseLong(range.group(1)) != existing) {
+                        // Server answered a different range than asked, start over
+                        log.warn("Unexpected Content-Range '{}' for {}, restarting",
+                                response.header("Content-Range"), target.getFileName());
+                        Files.deleteIfExists(partial);
+                        lastError = new IOException("Unexpected Content-Range");
+                        continue;
+                    }
+                    if (!"*".equals(range.group(3))) {
+                        expectedSize = Long.parseLong(range.group(3));
+                    }
+                    offset = existing;
+                } else {
+                    // Full body: either a fresh start or the server ignored our Range header
+                    offset = 0;
+                    expectedSize = body.contentLength();
+                }
+
+                if (offset > 0) {
+                    log.info("Resuming {} at byte {}", target.getFileName(), offset);
+                }
+                copy(body.byteStream(), partial, offset);
+                lastError = null;
+                break;
+
+            } catch (IOException e) {
+                log.warn("Download of {} interrupted (attempt {}/{}): {}",
+                        target.getFileName(), attempt + 1, maxRetries + 1, e.getMessage());
+                lastError = e;
+            }
+        }
+
+        if (lastError != null) {
+            Files.deleteIfExists(partial);
+            throw new IOException("Download of " + target.getFileName() + " failed: " + lastError.getMessage(), lastError);
+        }
+
+        DownloadResult result = verify(partial, expectedSize, expectedMd5);
+        if (expectedSize < 0 && expectedMd5 == null && !ffmpegProcessor.isValidVideo(partial.toString())) {
+            // Without a length or checksum a truncated body is only caught by reading the file
+            Files.deleteIfExists(partial);
+            throw new IOException("Download of " + target.getFileName() + " is not a readable video");
+        }
+        moveIntoPlace(partial, target);
+        log.info("Downloaded {} ({} bytes, sha256={})", target, result.getSize(), result.getSha256());
+        return new DownloadResult(target, result.getSize(), result.getSha256());
+    }
+
+    /**
+     * Atomically move a finished file into place, replacing any previous version
+     */
+    public void moveIntoPlace(Path source, Path target) throws IOException {
+        Files.createDirectories(target.toAbsolutePath().getParent());
+        try {
+            Files.move(source, target, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+        } catch (AtomicMoveNotSupportedException e) {
+            Files.move(source, target, StandardCopyOption.REPLACE_EXISTING);
+        }
+    }
+
+    /**
+     * Where the in-progress copy of a target lives, next to the target so the final rename is atomic
+     */
+    public Path partialPath(Path target) {
+        Path parent = target.toAbsolutePath().getParent();
+        return parent.resolve(PARTIAL_DIR).resolve(target.getFileName() + ".part");
+    }
+
+    private void copy(InputStream in, Path partial, long offset) throws IOException {
+        try (InputStream source = in;
+             FileChannel channel = FileChannel.open(partial, StandardOpenOption.CREATE, StandardOpenOption.WRITE)) {
+            channel.truncate(offset);
+            channel.position(offset);
+
+            byte[] buffer = new byte[bufferSize];
+            int read;
+            while ((read = source.read(buffer)) != -1) {
+                ByteBuffer chunk = ByteBuffer.wrap(buffer, 0, read);
+                while (chunk.hasRemaining()) {
+                    channel.write(chunk);
+                }
+            }
+        }
+    }
+
+    /**
+     * Check size and checksum of the finished file in one streaming pass
+     */
+    private DownloadResult verify(Path file, long expectedSize, String expectedMd5) throws IOException {
+        long size = Files.size(file);
+        if (expectedSize >= 0 && size != expectedSize) {
+            Files.deleteIfExists(file);
+            throw new IOException("Size mismatch: expected " + expectedSize + " bytes, got " + size);
+        }
+
+        MessageDigest sha256;
+        MessageDigest md5;
+        try {
+            sha256 = MessageDigest.getInstance("SHA-256");
+            md5 = MessageDigest.getInstance("MD5");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+
+        try (InputStream in = Files.newInputStream(file)) {
+            byte[] buffer = new byte[bufferSize];
+            int read;
+            while ((read = in.read(buffer)) != -1) {
+                sha256.update(buffer, 0, read);
+                md5.update(buffer, 0, read);
+            }
+        }
+
+        if (expectedMd5 != null) {
+            String actualMd5 = Base64.getEncoder().encodeToString(md5.digest());
+            if (!expectedMd5.equals(actualMd5)) {
+                Files.deleteIfExists(file);
+                throw new IOException("Checksum mismatch: expected md5 " + expectedMd5 + ", got " + actualMd5);
+            }
+        }
+
+        return new DownloadResult(file, size, HexFormat.of().formatHex(sha256.digest()));
+    }
+
+    private boolean isRetryable(int code) {
+        return code >= 500 || code == 408 || code == 429;
+    }
+
+    private String extractMd5(String googHash) {
+        if (googHash == null) {
+            return null;
+        }
+        Matcher matcher = GOOG_MD5.matcher(googHash);
+        return matcher.find() ? matcher.group(1) : null;
+    }
+
+    private void sleepBeforeRetry(int attempt) throws IOException {
+        long delay = retryDelay * (1L << Math.min(attempt - 1, 5));
+        try {
+            Thread.sleep(delay);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Download interrupted", e);
+        }
+    }
+
+    public static class DownloadResult {
+        private final Path path;
+        private final long size;
+        private final String sha256;
+
+        public DownloadResult(Path path, long size, String sha256) {
+            this.path = path;
+            this.size = size;
+            this.sha256 = sha256;
+        }
+
+        public Path getPath() { return path; }
+        public long getSize() { return size; }
+        public String getSha256() { return sha256; }
+    }
+}
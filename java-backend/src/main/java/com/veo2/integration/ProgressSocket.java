@@ -0,0 +1,82 @@
+package com.veo2.integration;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.BufferedReader;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.net.InetAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.function.Consumer;
+
+/**
+ * Loopback socket one ffmpeg process writes its -progress key=value blocks to
+ * Parsed here rather than with bramp's parser, which gives up at the first "N/A" value
+ * that ffmpeg writes for stream copies
+ */
+class ProgressSocket implements Closeable {
+
+    private static final Logger log = LoggerFactory.getLogger(ProgressSocket.class);
+
+    private final ServerSocket server;
+    private final Thread reader;
+
+    /**
+     * @param onBlock Receives the fields of every complete block, ending with progress=continue or progress=end
+     */
+    ProgressSocket(Consumer<Map<String, String>> onBlock) throws IOException {
+        this.server = new ServerSocket(0, 1, InetAddress.getLoopbackAddress());
+        this.reader = new Thread(() -> read(onBlock), "ffmpeg-progress-" + server.getLocalPort());
+        this.reader.setDaemon(true);
+        this.reader.start();
+    }
+
+    /**
+     * Value for ffmpeg's -progress option
+     */
+    String getUrl() {
+        return "tcp://" + server.getInetAddress().getHostAddress() + ":" + server.getLocalPort();
+    }
+
+    private void read(Consumer<Map<String, String>> onBlock) {
+        try (Socket socket = server.accept();
+             BufferedReader in = new BufferedReader(new InputStreamReader(socket.getInputStream(), StandardCharsets.UTF_8))) {
+            Map<String, String> block = new HashMap<>();
+            String line;
+            while ((line = in.readLine()) != null) {
+                int separator = line.indexOf('=');
+                if (separator <= 0) {
+                    continue;
+                }
+                String key = line.substring(0, separator).trim();
+                block.put(key, line.substring(separator + 1).trim());
+                if ("progress".equals(key)) {
+                    onBlock.accept(block);
+                    block = new HashMap<>();
+                }
+            }
+        } catch (IOException e) {
+            // Closed before ffmpeg connected, e.g. it failed on startup
+            log.debug("Progress socket closed: {}", e.getMessage());
+        }
+    }
+
+    /**
+     * Stop listening once ffmpeg has exited; the last block is read before this returns
+     */
+    @Override
+    public void close() throws IOException {
+        server.close();
+        try {
+            reader.join(2000);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
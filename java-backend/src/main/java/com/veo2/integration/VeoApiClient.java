@@ -2,13 +2,21 @@ package com.veo2.integration;
 
 import com.google.gson.Gson;
 import com.google.gson.JsonObject;
+import com.google.gson.JsonParser;
+import com.google.gson.stream.JsonReader;
 import okhttp3.*;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Component;
 
 import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.Map;
+import java.util.UUID;
 import java.util.concurrent.TimeUnit;
 
 /**
@@ -23,10 +31,19 @@ public class VeoApiClient {
     @Value("${veo2.gemini.api-key}")
     private String apiKey;
 
+    @Value("${veo2.storage.videos-dir}")
+    private String videosDir;
+
+    @Autowired
+    private MediaDownloader mediaDownloader;
+
     // Google AI Sandbox VEO API endpoint (used by Flow)
     private static final String VEO_API_BASE = "https://aisandbox-pa.googleapis.com/v1";
     private static final String VEO_MODEL = "veo-3.1-generate-preview";
 
+    // Spool directory under videosDir for clips that are still being written
+    private static final String PARTIAL_DIR = ".partial";
+
     private final OkHttpClient httpClient;
     private final Gson gson;
 
@@ -125,16 +142,26 @@ public class VeoApiClient {
                 .get()
                 .build();
 
-        try (Response response = httpClient.newCall(request).execute()) {
-            String responseBody = response.body() != null ? response.body().string() : "";
+        Path spoolFile = Paths.get(videosDir, PARTIAL_DIR, UUID.randomUUID() + ".mp4.part");
 
+        try (Response response = httpClient.newCall(request).execute()) {
             if (!response.isSuccessful()) {
+                String responseBody = response.body() != null ? response.body().string() : "";
                 log.error("VEO status check error: HTTP {}, body: {}", response.code(), responseBody);
                 throw new IOException("VEO status error: HTTP " + response.code());
             }
+            if (response.body() == null) {
+                throw new IOException("VEO status error: empty response");
+            }
 
-            // Parse response
-            JsonObject responseJson = gson.fromJson(responseBody, JsonObject.class);
+            // Stream the body: the encoded video goes straight to disk, the rest is parsed as usual
+            Files.createDirectories(spoolFile.getParent());
+            JsonObject responseJson;
+            Base64FieldExtractor extractor = new Base64FieldExtractor(
+                    response.body().charStream(), "bytesBase64Encoded", spoolFile);
+            try (JsonReader reader = new JsonReader(extractor)) {
+                responseJson = JsonParser.parseReader(reader).getAsJsonObject();
+            }
 
             VeoStatusResponse statusResponse = new VeoStatusResponse();
             statusResponse.setOperationId(operationName);
@@ -158,9 +185,10 @@ public class VeoApiClient {
                     if (responseData.has("predictions")) {
                         JsonObject predictions = responseData.getAsJsonArray("predictions").get(0).getAsJsonObject();
 
-                        // Check for base64 encoded video
-                        if (predictions.has("bytesBase64Encoded")) {
-                            statusResponse.setVideoBase64(predictions.get("bytesBase64Encoded").getAsString());
+                        // Video bytes were decoded to the spool file while reading
+                        if (extractor.isExtracted()) {
+                            log.info("Decoded {} bytes of inline video to {}", extractor.getBytesWritten(), spoolFile);
+                            statusResponse.setVideoFilePath(spoolFile.toString());
                         }
 
                         // Check for video URI
@@ -175,51 +203,41 @@ public class VeoApiClient {
                 statusResponse.setProgress(50); // Estimate progress
             }
 
+            if (statusResponse.getVideoFilePath() == null) {
+                Files.deleteIfExists(spoolFile);
+            }
+
             log.info("VEO status: {}, progress: {}%", statusResponse.getStatus(), statusResponse.getProgress());
             return statusResponse;
+
+        } catch (IOException | RuntimeException e) {
+            Files.deleteIfExists(spoolFile);
+            throw e;
         }
     }
 
     /**
-     * Download video from base64 or URL
-     * @param videoData Base64 string or URL
-     * @param isBase64 True if videoData is base64 encoded
+     * Download video from URL
+     * Streams to a partial file with resume support and renames into place once verified
+     * @param videoUrl Video URI returned by the operation
      * @param outputPath Local file path to save
      */
-    public void downloadVideo(String videoData, boolean isBase64, String outputPath) throws IOException {
-        log.info("Downloading video to: {}", outputPath);
+    public void downloadVideo(String videoUrl, String outputPath) throws IOException {
+        log.info("Downloading video from URL: {} to {}", videoUrl, outputPath);
 
-        byte[] videoBytes;
-
-        if (isBase64) {
-            // Decode base64
-            log.info("Decoding base64 video data");
-            videoBytes = java.util.Base64.getDecoder().decode(videoData);
-        } else {
-            // Download from URL
-            log.info("Downloading video from URL: {}", videoData);
-
-            Request request = new Request.Builder()
-                    .url(videoData)
-                    .get()
-                    .build();
-
-            try (Response response = httpClient.newCall(request).execute()) {
-                if (!response.isSuccessful()) {
-                    throw new IOException("Failed to download video: HTTP " + response.code());
-                }
-
-                videoBytes = response.body().bytes();
-            }
-        }
+        mediaDownloader.download(videoUrl, Paths.get(outputPath), Map.of());
+    }
 
-        // Save to file
-        java.nio.file.Files.write(
-            java.nio.file.Paths.get(outputPath),
-            videoBytes
-        );
+    /**
+     * Move a video decoded by checkStatus into its final location
+     * @param spooledPath File from VeoStatusResponse.getVideoFilePath()
+     * @param outputPath Local file path to save
+     */
+    public void saveSpooledVideo(String spooledPath, String outputPath) throws IOException {
+        Path target = Paths.get(outputPath);
+        mediaDownloader.moveIntoPlace(Paths.get(spooledPath), target);
 
-        log.info("Video saved successfully: {} bytes", videoBytes.length);
+        log.info("Video saved successfully: {} bytes", Files.size(target));
     }
 
     // Response classes
@@ -250,7 +268,7 @@ public class VeoApiClient {
         private String operationId;
         private String status; // PENDING, PROCESSING, COMPLETED, FAILED
         private String videoUrl;
-        private String videoBase64; // Base64 encoded video data
+        private String videoFilePath; // Inline video already decoded to a spool file
         private String thumbnailUrl;
         private int progress; // 0-100
         private String errorMessage;
@@ -264,8 +282,8 @@ public class VeoApiClient {
         public String getVideoUrl() { return videoUrl; }
         public void setVideoUrl(String videoUrl) { this.videoUrl = videoUrl; }
 
-        public String getVideoBase64() { return videoBase64; }
-        public void setVideoBase64(String videoBase64) { this.videoBase64 = videoBase64; }
+        public String getVideoFilePath() { return videoFilePath; }
+        public void setVideoFilePath(String videoFilePath) { this.videoFilePath = videoFilePath; }
 
         public String getThumbnailUrl() { return thumbnailUrl; }
         public void setThumbnailUrl(String thumbnailUrl) { this.thumbnailUrl = thumbnailUrl; }
@@ -14,8 +14,12 @@ public class AssemblyJob {
     private String status; // processing, completed, failed
     private int progress; // 0-100
     private long estimatedTime; // seconds
+    private double speed; // encoding speed as a multiple of real time, while running
+    private long framesProcessed;
+    private double processedSeconds; // seconds of media written so far
     private String outputFilePath;
     private String outputUrl;
+    private String playlistUrl; // HLS playlist when outputFormat is hls
     private long fileSize;
     private int totalDuration;
     private String errorMessage;
@@ -76,12 +80,24 @@ public class AssemblyJob {
     public long getEstimatedTime() { return estimatedTime; }
     public void setEstimatedTime(long estimatedTime) { this.estimatedTime = estimatedTime; }
 
+    public double getSpeed() { return speed; }
+    public void setSpeed(double speed) { this.speed = speed; }
+
+    public long getFramesProcessed() { return framesProcessed; }
+    public void setFramesProcessed(long framesProcessed) { this.framesProcessed = framesProcessed; }
+
+    public double getProcessedSeconds() { return processedSeconds; }
+    public void setProcessedSeconds(double processedSeconds) { this.processedSeconds = processedSeconds; }
+
     public String getOutputFilePath() { return outputFilePath; }
     public void setOutputFilePath(String outputFilePath) { this.outputFilePath = outputFilePath; }
 
     public String getOutputUrl() { return outputUrl; }
     public void setOutputUrl(String outputUrl) { this.outputUrl = outputUrl; }
 
+    public String getPlaylistUrl() { return playlistUrl; }
+    public void setPlaylistUrl(String playlistUrl) { this.playlistUrl = playlistUrl; }
+
     public long getFileSize() { return fileSize; }
     public void setFileSize(long fileSize) { this.fileSize = fileSize; }
 
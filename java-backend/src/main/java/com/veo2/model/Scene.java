@@ -15,6 +15,8 @@ public class Scene {
     private long fileSize;
     private String resolution;
     private int progress; // 0-100
+    private SpriteSheet spriteSheet; // filmstrip for scrubbing previews, null until generated
+    private String playlistUrl; // HLS playlist of the clip, null unless scene packaging is on
 
     // Constructors
     public Scene() {}
@@ -82,6 +84,12 @@ public class Scene {
     public int getProgress() { return progress; }
     public void setProgress(int progress) { this.progress = progress; }
 
+    public SpriteSheet getSpriteSheet() { return spriteSheet; }
+    public void setSpriteSheet(SpriteSheet spriteSheet) { this.spriteSheet = spriteSheet; }
+
+    public String getPlaylistUrl() { return playlistUrl; }
+    public void setPlaylistUrl(String playlistUrl) { this.playlistUrl = playlistUrl; }
+
     // Builder pattern
     public static Builder builder() {
         return new Builder();
@@ -0,0 +1,84 @@
+package com.veo2.model;
+
+/**
+ * Listing entry for a script: its metadata and scene counts, without the scenes
+ */
+public class ScriptSummary {
+    private String scriptId;
+    private String title;
+    private String topic;
+    private String status;
+    private String aspectRatio;
+    private int totalDuration;
+    private int sceneCount;
+    private int completedScenes;
+    private int failedScenes;
+    private long createdAt;
+    private long updatedAt;
+    private long sizeBytes; // snapshot plus journal on disk, 0 until first written
+
+    public ScriptSummary() {}
+
+    /**
+     * Summarize a script; the caller holds its lock if scenes may be changing
+     */
+    public static ScriptSummary of(Script script, long sizeBytes) {
+        ScriptSummary summary = new ScriptSummary();
+        summary.scriptId = script.getScriptId();
+        summary.title = script.getTitle();
+        summary.topic = script.getTopic();
+        summary.status = script.getStatus();
+        summary.aspectRatio = script.getAspectRatio();
+        summary.totalDuration = script.getTotalDuration();
+        summary.createdAt = script.getCreatedAt();
+        summary.updatedAt = System.currentTimeMillis();
+        summary.sizeBytes = sizeBytes;
+        if (script.getScenes() != null) {
+            for (Scene scene : script.getScenes()) {
+                summary.sceneCount++;
+                if ("completed".equals(scene.getStatus())) {
+                    summary.completedScenes++;
+                } else if ("failed".equals(scene.getStatus())) {
+                    summary.failedScenes++;
+                }
+            }
+        }
+        return summary;
+    }
+
+    public String getScriptId() { return scriptId; }
+    public void setScriptId(String scriptId) { this.scriptId = scriptId; }
+
+    public String getTitle() { return title; }
+    public void setTitle(String title) { this.title = title; }
+
+    public String getTopic() { return topic; }
+    public void setTopic(String topic) { this.topic = topic; }
+
+    public String getStatus() { return status; }
+    public void setStatus(String status) { this.status = status; }
+
+    public String getAspectRatio() { return aspectRatio; }
+    public void setAspectRatio(String aspectRatio) { this.aspectRatio = aspectRatio; }
+
+    public int getTotalDuration() { return totalDuration; }
+    public void setTotalDuration(int totalDuration) { this.totalDuration = totalDuration; }
+
+    public int getSceneCount() { return sceneCount; }
+    public void setSceneCount(int sceneCount) { this.sceneCount = sceneCount; }
+
+    public int getCompletedScenes() { return completedScenes; }
+    public void setCompletedScenes(int completedScenes) { this.completedScenes = completedScenes; }
+
+    public int getFailedScenes() { return failedScenes; }
+    public void setFailedScenes(int failedScenes) { this.failedScenes = failedScenes; }
+
+    public long getCreatedAt() { return createdAt; }
+    public void setCreatedAt(long createdAt) { this.createdAt = createdAt; }
+
+    public long getUpdatedAt() { return updatedAt; }
+    public void setUpdatedAt(long updatedAt) { this.updatedAt = updatedAt; }
+
+    public long getSizeBytes() { return sizeBytes; }
+    public void setSizeBytes(long sizeBytes) { this.sizeBytes = sizeBytes; }
+}
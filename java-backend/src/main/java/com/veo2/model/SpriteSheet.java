@@ -0,0 +1,49 @@
+package com.veo2.model;
+
+/**
+ * Layout of a scene's filmstrip sprite: frames are tiled left to right, top to bottom,
+ * frame i shows time i * interval
+ */
+public class SpriteSheet {
+    private String spriteUrl;
+    private int columns;
+    private int rows;
+    private int frameCount;
+    private int frameWidth;
+    private int frameHeight;
+    private double interval; // seconds between frames
+
+    public SpriteSheet() {}
+
+    public SpriteSheet(String spriteUrl, int columns, int rows, int frameCount,
+                       int frameWidth, int frameHeight, double interval) {
+        this.spriteUrl = spriteUrl;
+        this.columns = columns;
+        this.rows = rows;
+        this.frameCount = frameCount;
+        this.frameWidth = frameWidth;
+        this.frameHeight = frameHeight;
+        this.interval = interval;
+    }
+
+    public String getSpriteUrl() { return spriteUrl; }
+    public void setSpriteUrl(String spriteUrl) { this.spriteUrl = spriteUrl; }
+
+    public int getColumns() { return columns; }
+    public void setColumns(int columns) { this.columns = columns; }
+
+    public int getRows() { return rows; }
+    public void setRows(int rows) { this.rows = rows; }
+
+    public int getFrameCount() { return frameCount; }
+    public void setFrameCount(int frameCount) { this.frameCount = frameCount; }
+
+    public int getFrameWidth() { return frameWidth; }
+    public void setFrameWidth(int frameWidth) { this.frameWidth = frameWidth; }
+
+    public int getFrameHeight() { return frameHeight; }
+    public void setFrameHeight(int frameHeight) { this.frameHeight = frameHeight; }
+
+    public double getInterval() { return interval; }
+    public void setInterval(double interval) { this.interval = interval; }
+}
@@ -14,6 +14,8 @@ public class VideoJob {
     private String quality;
     private Scene currentScene;
     private String currentOperationId; // VEO API operation ID
+    private long deadline; // epoch millis, from the request or the service default
+    private String assemblyJobId; // running assembly fed as scenes complete, null when not requested
     private long estimatedTime; // seconds
     private long startTime;
     private long endTime;
@@ -72,6 +74,12 @@ public class VideoJob {
     public String getCurrentOperationId() { return currentOperationId; }
     public void setCurrentOperationId(String currentOperationId) { this.currentOperationId = currentOperationId; }
 
+    public long getDeadline() { return deadline; }
+    public void setDeadline(long deadline) { this.deadline = deadline; }
+
+    public String getAssemblyJobId() { return assemblyJobId; }
+    public void setAssemblyJobId(String assemblyJobId) { this.assemblyJobId = assemblyJobId; }
+
     public long getEstimatedTime() { return estimatedTime; }
     public void setEstimatedTime(long estimatedTime) { this.estimatedTime = estimatedTime; }
 
@@ -104,6 +112,7 @@ public class VideoJob {
         private List<Integer> sceneNumbers;
         private String quality;
         private Scene currentScene;
+        private long deadline;
         private long estimatedTime;
         private long startTime;
         private long endTime;
@@ -118,15 +127,18 @@ public class VideoJob {
         public Builder sceneNumbers(List<Integer> sceneNumbers) { this.sceneNumbers = sceneNumbers; return this; }
         public Builder quality(String quality) { this.quality = quality; return this; }
         public Builder currentScene(Scene currentScene) { this.currentScene = currentScene; return this; }
+        public Builder deadline(long deadline) { this.deadline = deadline; return this; }
         public Builder estimatedTime(long estimatedTime) { this.estimatedTime = estimatedTime; return this; }
         public Builder startTime(long startTime) { this.startTime = startTime; return this; }
         public Builder endTime(long endTime) { this.endTime = endTime; return this; }
         public Builder errorMessage(String errorMessage) { this.errorMessage = errorMessage; return this; }
 
         public VideoJob build() {
-            return new VideoJob(jobId, scriptId, status, progress, completedScenes,
+            VideoJob job = new VideoJob(jobId, scriptId, status, progress, completedScenes,
                               totalScenes, sceneNumbers, quality, currentScene,
                               estimatedTime, startTime, endTime, errorMessage);
+            job.setDeadline(deadline);
+            return job;
         }
     }
 }
@@ -0,0 +1,497 @@
+package com.veo2.repository;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Interner;
+import com.google.gson.Gson;
+import com.google.gson.GsonBuilder;
+import com.google.gson.JsonArray;
+import com.google.gson.JsonElement;
+import com.google.gson.JsonNull;
+import com.google.gson.JsonObject;
+import com.google.gson.JsonParseException;
+import com.google.gson.JsonParser;
+import com.veo2.model.Script;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+/**
+ * Stores each script as a JSON snapshot ({id}.json) plus an append-only journal ({id}.journal)
+ * A write compares the script with what is already on disk and appends one line per changed
+ * scene, or for changed script fields, holding only the fields that changed. Loading replays
+ * the journal over the snapshot; once a journal passes the compaction threshold a background
+ * thread folds it into a fresh snapshot, so writers only ever append
+ */
+public class JsonScriptRepository implements ScriptRepository {
+
+    private static final Logger log = LoggerFactory.getLogger(JsonScriptRepository.class);
+
+    // Scripts whose on-disk state is remembered for diffing; others get a snapshot on their next write
+    private static final int DISK_STATE_LIMIT = 1000;
+
+    private static final String SCENES = "scenes";
+    private static final String SCENE_NUMBER = "sceneNumber";
+
+    private final String scriptsDir;
+    private final int compactAfter;
+    private final boolean fsync;
+
+    private final Gson gson = new Gson();
+    // Journal lines keep nulls, so a field that was cleared is cleared on replay
+    private final Gson recordGson = new GsonBuilder().serializeNulls().create();
+
+    private final Cache<String, DiskState> diskStates = Caffeine.newBuilder()
+            .maximumSize(DISK_STATE_LIMIT)
+            .build();
+    // One lock per script id, also when two Script instances of the same id are written
+    private final Interner<String> scriptLocks = Interner.newWeakInterner();
+
+    private final ExecutorService compactor = Executors.newSingleThreadExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "veo2-journal-compact");
+        thread.setDaemon(true);
+        return thread;
+    });
+    private final Set<String> compactionsPending = ConcurrentHashMap.newKeySet();
+
+    /**
+     * @param compactAfter Journal records before the journal is folded into a snapshot, 0 for snapshots only
+     * @param fsync Whether to sync journals, snapshots and the directory to disk after each write
+     */
+    public JsonScriptRepository(String scriptsDir, int compactAfter, boolean fsync) {
+        this.scriptsDir = scriptsDir;
+        this.compactAfter = compactAfter;
+        this.fsync = fsync;
+    }
+
+    /**
+     * Persist a script, as journal records when its on-disk state is known and as a snapshot otherwise
+     */
+    @Override
+    public boolean save(Script script) throws IOException {
+        String scriptId = script.getScriptId();
+        JsonObject current = gson.toJsonTree(script).getAsJsonObject();
+
+        synchronized (scriptLocks.intern(scriptId)) {
+            DiskState state = diskStates.getIfPresent(scriptId);
+            List<JsonObject> records = state != null ? state.diff(current) : null;
+
+            if (records == null || compactAfter <= 0) {
+                writeSnapshot(scriptId, current);
+                log.debug("Script {} saved as a snapshot", scriptId);
+                return true;
+            }
+            if (records.isEmpty()) {
+                return false;
+            }
+
+            StringBuilder lines = new StringBuilder();
+            for (JsonObject record : records) {
+                lines.append(recordGson.toJson(record)).append('\n');
+            }
+            Path journalPath = journalPath(scriptId);
+            boolean newJournal = !Files.exists(journalPath);
+            try (FileChannel journal = FileChannel.open(journalPath, StandardOpenOption.CREATE,
+                    StandardOpenOption.WRITE, StandardOpenOption.APPEND)) {
+                long sizeBefore = journal.size();
+                try {
+                    ByteBuffer buffer = ByteBuffer.wrap(lines.toString().getBytes(StandardCharsets.UTF_8));
+                    while (buffer.hasRemaining()) {
+                        journal.write(buffer);
+                    }
+                    if (fsync) {
+                        // One sync covers every record of this write
+                        journal.force(false);
+                    }
+                } catch (IOException e) {
+                    // Cut off what part of the write landed, and make the next save a snapshot
+                    // in case that fails too, so no record is ever appended after a partial line
+                    diskStates.invalidate(scriptId);
+                    try {
+                        journal.truncate(sizeBefore);
+                    } catch (IOException truncateError) {
+                        log.warn("Cannot truncate journal of script {}: {}", scriptId, truncateError.getMessage());
+                    }
+                    throw e;
+                }
+            }
+            if (fsync && newJournal) {
+                syncDirectory(journalPath.getParent());
+            }
+
+            state.apply(current, records.size());
+            log.debug("Script {} saved as {} journal records", scriptId, records.size());
+            if (state.records > compactAfter) {
+                scheduleCompaction(scriptId);
+            }
+            return true;
+        }
+    }
+
+    /**
+     * Load a script from its snapshot and journal
+     */
+    @Override
+    public Script load(String scriptId) throws IOException {
+        synchronized (scriptLocks.intern(scriptId)) {
+            Stored stored = read(scriptId);
+            if (stored == null) {
+                return null;
+            }
+
+            if (stored.damaged) {
+                // Not remembered, so the next save writes a snapshot instead of appending after the damage
+                diskStates.invalidate(scriptId);
+                scheduleCompaction(scriptId);
+            } else {
+                diskStates.put(scriptId, new DiskState(stored.json, stored.records));
+                if (stored.records > compactAfter) {
+                    scheduleCompaction(scriptId);
+                }
+            }
+            return gson.fromJson(stored.json, Script.class);
+        }
+    }
+
+    /**
+     * Remove a script's snapshot and journal
+     */
+    @Override
+    public boolean delete(String scriptId) throws IOException {
+        synchronized (scriptLocks.intern(scriptId)) {
+            diskStates.invalidate(scriptId);
+            Files.deleteIfExists(journalPath(scriptId));
+            return Files.deleteIfExists(snapshotPath(scriptId));
+        }
+    }
+
+    /**
+     * Ids of the scripts with a snapshot
+     */
+    @Override
+    public List<String> ids() throws IOException {
+        Path dir = Paths.get(scriptsDir);
+        if (!Files.isDirectory(dir)) {
+            return List.of();
+        }
+        try (Stream<Path> files = Files.list(dir)) {
+            return files.map(path -> path.getFileName().toString())
+                    .filter(name -> name.endsWith(".json"))
+                    .map(name -> name.substring(0, name.length() - ".json".length()))
+                    .collect(Collectors.toList());
+        }
+    }
+
+    /**
+     * Snapshot and journal together
+     */
+    @Override
+    public long sizeOf(String scriptId) {
+        File snapshot = snapshotPath(scriptId).toFile();
+        File journal = journalPath(scriptId).toFile();
+        return snapshot.length() + journal.length();
+    }
+
+    @Override
+    public long lastModified(String scriptId) {
+        File snapshot = snapshotPath(scriptId).toFile();
+        File journal = journalPath(scriptId).toFile();
+        return Math.max(snapshot.lastModified(), journal.lastModified());
+    }
+
+    /**
+     * Finish pending compactions; no files are held open between writes
+     */
+    @Override
+    public void close() {
+        compactor.shutdown();
+        try {
+            if (!compactor.awaitTermination(10, TimeUnit.SECONDS)) {
+                log.warn("Journal compaction still running at shutdown");
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        diskStates.invalidateAll();
+    }
+
+    /**
+     * Read a script's snapshot and replay its journal; caller holds the script's lock
+     * @return The stored script, or null if there is no snapshot
+     */
+    private Stored read(String scriptId) throws IOException {
+        Path snapshotPath = snapshotPath(scriptId);
+        if (!Files.exists(snapshotPath)) {
+            return null;
+        }
+        Stored stored = new Stored(JsonParser.parseString(Files.readString(snapshotPath)).getAsJsonObject());
+
+        Path journalPath = journalPath(scriptId);
+        if (!Files.exists(journalPath)) {
+            return stored;
+        }
+        List<String> lines = new ArrayList<>();
+        try (BufferedReader reader = Files.newBufferedReader(journalPath, StandardCharsets.UTF_8)) {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                if (!line.isBlank()) {
+                    lines.add(line);
+                }
+            }
+        }
+        for (int i = 0; i < lines.size(); i++) {
+            try {
+                replay(stored.json, JsonParser.parseString(lines.get(i)).getAsJsonObject());
+                stored.records++;
+            } catch (JsonParseException | IllegalStateException e) {
+                stored.damaged = true;
+                if (i < lines.size() - 1) {
+                    // Not a write cut short by a crash, which can only be the last line; the
+                    // complete records after it still apply
+                    log.warn("Skipping damaged record {} of {} in journal of script {}", i + 1, lines.size(), scriptId);
+                }
+            }
+        }
+        return stored;
+    }
+
+    private void scheduleCompaction(String scriptId) {
+        if (!compactionsPending.add(scriptId)) {
+            return;
+        }
+        try {
+            compactor.execute(() -> compact(scriptId));
+        } catch (RejectedExecutionException e) {
+            // Shutting down; the journal is compacted on a later load
+            compactionsPending.remove(scriptId);
+        }
+    }
+
+    /**
+     * Fold a script's journal into a fresh snapshot, from what is on disk
+     */
+    private void compact(String scriptId) {
+        compactionsPending.remove(scriptId);
+        synchronized (scriptLocks.intern(scriptId)) {
+            try {
+                Stored stored = read(scriptId);
+                if (stored == null) {
+                    return;
+                }
+                log.info("Compacting journal of script {} ({} records)", scriptId, stored.records);
+                writeSnapshot(scriptId, stored.json);
+            } catch (IOException | RuntimeException e) {
+                log.warn("Failed to compact journal of script {}: {}", scriptId, e.getMessage());
+            }
+        }
+    }
+
+    /**
+     * Write a full snapshot and start an empty journal
+     * The snapshot goes to a temp file renamed over the old one; with fsync on, the file is synced
+     * before the rename and the directory after it, so the journal is only removed once the new
+     * snapshot is durable. A crash before the journal is removed only replays records the
+     * snapshot already contains
+     */
+    private void writeSnapshot(String scriptId, JsonObject json) throws IOException {
+        Path dir = Files.createDirectories(Paths.get(scriptsDir));
+        Path tempPath = Files.createTempFile(dir, scriptId, ".json.tmp");
+        try {
+            try (FileChannel snapshot = FileChannel.open(tempPath, StandardOpenOption.WRITE,
+                    StandardOpenOption.TRUNCATE_EXISTING)) {
+                ByteBuffer buffer = ByteBuffer.wrap(gson.toJson(json).getBytes(StandardCharsets.UTF_8));
+                while (buffer.hasRemaining()) {
+                    snapshot.write(buffer);
+                }
+                if (fsync) {
+                    snapshot.force(true);
+                }
+            }
+            try {
+                Files.move(tempPath, snapshotPath(scriptId), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            } catch (AtomicMoveNotSupportedException e) {
+                Files.move(tempPath, snapshotPath(scriptId), StandardCopyOption.REPLACE_EXISTING);
+            }
+        } finally {
+            Files.deleteIfExists(tempPath);
+        }
+        if (fsync) {
+            syncDirectory(dir);
+        }
+        Files.deleteIfExists(journalPath(scriptId));
+        diskStates.put(scriptId, new DiskState(json, 0));
+    }
+
+    /**
+     * Apply one journal record to a script's JSON
+     */
+    private static void replay(JsonObject script, JsonObject record) {
+        JsonObject target = script;
+        if (record.has("scene")) {
+            target = null;
+            int sceneNumber = record.get("scene").getAsInt();
+            JsonArray scenes = script.getAsJsonArray(SCENES);
+            for (JsonElement scene : scenes != null ? scenes : new JsonArray()) {
+                if (scene.getAsJsonObject().has(SCENE_NUMBER)
+                        && scene.getAsJsonObject().get(SCENE_NUMBER).getAsInt() == sceneNumber) {
+                    target = scene.getAsJsonObject();
+                    break;
+                }
+            }
+            if (target == null) {
+                throw new IllegalStateException("Journal record for unknown scene " + sceneNumber);
+            }
+        }
+        for (Map.Entry<String, JsonElement> field : record.getAsJsonObject("set").entrySet()) {
+            if (field.getValue().isJsonNull()) {
+                target.remove(field.getKey());
+            } else {
+                target.add(field.getKey(), field.getValue());
+            }
+        }
+    }
+
+    /**
+     * Make renames and newly created files in a directory durable
+     * Not every platform can open a directory for syncing (Windows cannot); there it is skipped
+     */
+    private static void syncDirectory(Path dir) throws IOException {
+        try (FileChannel channel = FileChannel.open(dir, StandardOpenOption.READ)) {
+            channel.force(true);
+        } catch (IOException e) {
+            if (Files.isDirectory(dir)) {
+                log.debug("Cannot sync directory {}: {}", dir, e.getMessage());
+                return;
+            }
+            throw e;
+        }
+    }
+
+    private Path snapshotPath(String scriptId) {
+        return Paths.get(scriptsDir, scriptId + ".json");
+    }
+
+    private Path journalPath(String scriptId) {
+        return Paths.get(scriptsDir, scriptId + ".journal");
+    }
+
+    /**
+     * A script as read from disk: the snapshot with the journal replayed over it
+     */
+    private static class Stored {
+        private final JsonObject json;
+        private int records;
+        private boolean damaged;
+
+        Stored(JsonObject json) {
+            this.json = json;
+        }
+    }
+
+    /**
+     * What is on disk for one script: its fields other than scenes, and each scene by number
+     */
+    private static class DiskState {
+        private JsonObject fields;
+        private Map<Integer, JsonObject> scenes;
+        private int records;
+
+        DiskState(JsonObject script, int records) {
+            apply(script, 0);
+            this.records = records;
+        }
+
+        /**
+         * Records that turn the on-disk state into the given script, or null when the scene
+         * list itself changed and only a snapshot can express it
+         */
+        List<JsonObject> diff(JsonObject script) {
+            Map<Integer, JsonObject> currentScenes = scenesOf(script);
+            if (!currentScenes.keySet().equals(scenes.keySet())) {
+                return null;
+            }
+
+            List<JsonObject> changes = new ArrayList<>();
+            JsonObject fieldChanges = changedFields(fields, fieldsOf(script));
+            if (fieldChanges.size() > 0) {
+                JsonObject record = new JsonObject();
+                record.add("set", fieldChanges);
+                changes.add(record);
+            }
+            for (Map.Entry<Integer, JsonObject> scene : currentScenes.entrySet()) {
+                JsonObject sceneChanges = changedFields(scenes.get(scene.getKey()), scene.getValue());
+                if (sceneChanges.size() > 0) {
+                    JsonObject record = new JsonObject();
+                    record.addProperty("scene", scene.getKey());
+                    record.add("set", sceneChanges);
+                    changes.add(record);
+                }
+            }
+            return changes;
+        }
+
+        void apply(JsonObject script, int appended) {
+            this.fields = fieldsOf(script);
+            this.scenes = scenesOf(script);
+            this.records += appended;
+        }
+
+        private static JsonObject changedFields(JsonObject before, JsonObject after) {
+            JsonObject changed = new JsonObject();
+            Set<String> keys = new HashSet<>(before.keySet());
+            keys.addAll(after.keySet());
+            for (String key : keys) {
+                JsonElement value = after.get(key);
+                if (!Objects.equals(before.get(key), value)) {
+                    changed.add(key, value != null ? value.deepCopy() : JsonNull.INSTANCE);
+                }
+            }
+            return changed;
+        }
+
+        private static JsonObject fieldsOf(JsonObject script) {
+            JsonObject fields = script.deepCopy();
+            fields.remove(SCENES);
+            return fields;
+        }
+
+        private static Map<Integer, JsonObject> scenesOf(JsonObject script) {
+            Map<Integer, JsonObject> scenes = new HashMap<>();
+            JsonArray array = script.getAsJsonArray(SCENES);
+            if (array != null) {
+                for (JsonElement element : array) {
+                    JsonObject scene = element.getAsJsonObject();
+                    int number = scene.has(SCENE_NUMBER) ? scene.get(SCENE_NUMBER).getAsInt() : -1;
+                    scenes.put(number, scene.deepCopy());
+                }
+            }
+            return scenes;
+        }
+    }
+}
@@ -0,0 +1,123 @@
+package com.veo2.repository;
+
+import com.google.gson.Gson;
+import com.veo2.model.Script;
+import org.h2.mvstore.MVMap;
+import org.h2.mvstore.MVStore;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Stores scripts in one H2 MVStore file, as JSON keyed by id
+ * Every save is its own commit covering the script and its modification time, so a crash
+ * leaves either the old or the new version; MVStore's background thread reclaims the space
+ * of superseded versions. Lookups and listings never touch the directory
+ */
+public class MVStoreScriptRepository implements ScriptRepository {
+
+    private static final Logger log = LoggerFactory.getLogger(MVStoreScriptRepository.class);
+
+    // Time close() may spend moving live pages to shrink the file
+    private static final int CLOSE_COMPACTION_MILLIS = 2000;
+
+    private final MVStore store;
+    private final MVMap<String, String> scripts;
+    private final MVMap<String, Long> modified;
+    private final Gson gson = new Gson();
+
+    /**
+     * Open or create the store
+     * @param cacheSizeMb Page cache of the store, in megabytes
+     */
+    public MVStoreScriptRepository(String fileName, int cacheSizeMb) throws IOException {
+        Path path = Paths.get(fileName).toAbsolutePath();
+        Files.createDirectories(path.getParent());
+        this.store = new MVStore.Builder()
+                .fileName(path.toString())
+                .cacheSize(cacheSizeMb)
+                .open();
+        this.scripts = store.openMap("scripts");
+        this.modified = store.openMap("modified");
+        log.info("Opened script store {} with {} scripts", path, scripts.size());
+    }
+
+    @Override
+    public boolean save(Script script) throws IOException {
+        String json = gson.toJson(script);
+        synchronized (store) {
+            if (json.equals(scripts.get(script.getScriptId()))) {
+                return false;
+            }
+            scripts.put(script.getScriptId(), json);
+            modified.put(script.getScriptId(), System.currentTimeMillis());
+            commit();
+        }
+        return true;
+    }
+
+    @Override
+    public Script load(String scriptId) {
+        String json = scripts.get(scriptId);
+        return json != null ? gson.fromJson(json, Script.class) : null;
+    }
+
+    @Override
+    public boolean delete(String scriptId) throws IOException {
+        synchronized (store) {
+            boolean deleted = scripts.remove(scriptId) != null;
+            modified.remove(scriptId);
+            commit();
+            return deleted;
+        }
+    }
+
+    @Override
+    public List<String> ids() {
+        return new ArrayList<>(scripts.keySet());
+    }
+
+    /**
+     * Uncompressed size of the stored JSON
+     */
+    @Override
+    public long sizeOf(String scriptId) {
+        String json = scripts.get(scriptId);
+        return json != null ? json.getBytes(StandardCharsets.UTF_8).length : 0;
+    }
+
+    @Override
+    public long lastModified(String scriptId) {
+        Long time = modified.get(scriptId);
+        return time != null ? time : 0;
+    }
+
+    /**
+     * Write the pending changes as one new version of the store
+     */
+    private void commit() throws IOException {
+        try {
+            store.commit();
+        } catch (IllegalStateException e) {
+            // MVStoreException, e.g. the disk is full or the store was closed
+            throw new IOException("Failed to commit script store: " + e.getMessage(), e);
+        }
+    }
+
+    /**
+     * Close the store, first spending a little time compacting the file
+     */
+    @Override
+    public void close() {
+        if (!store.isClosed()) {
+            store.close(CLOSE_COMPACTION_MILLIS);
+        }
+    }
+}
@@ -0,0 +1,98 @@
+package com.veo2.repository;
+
+import ch.qos.logback.classic.Level;
+import com.google.gson.Gson;
+import com.veo2.model.Script;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+
+/**
+ * Copies every script from one storage backend to another, checking each copy
+ *
+ * Usage: java -cp <runtime classpath> com.veo2.repository.ScriptMigration <from> <to>
+ * where each side is json:<scripts dir> or mvstore:<store file>, e.g.
+ * json:./data/scripts mvstore:./data/scripts.mv.db
+ *
+ * Run with the application stopped, then set veo2.storage.backend to the new backend.
+ * Scripts already in the target are overwritten; the source is left as it was
+ */
+public class ScriptMigration {
+
+    private static final Logger log = LoggerFactory.getLogger(ScriptMigration.class);
+
+    private static final Gson gson = new Gson();
+
+    public static void main(String[] args) throws Exception {
+        if (args.length != 2) {
+            System.err.println("Usage: ScriptMigration <json:dir|mvstore:file> <json:dir|mvstore:file>");
+            System.exit(2);
+        }
+        ((ch.qos.logback.classic.Logger) LoggerFactory.getLogger(Logger.ROOT_LOGGER_NAME)).setLevel(Level.INFO);
+
+        try (ScriptRepository source = open(args[0]);
+             ScriptRepository target = open(args[1])) {
+            Result result = migrate(source, target);
+            System.out.printf("Migrated %d scripts in %dms, %d failed%n",
+                    result.migrated, result.millis, result.failed);
+            if (result.failed > 0) {
+                System.exit(1);
+            }
+        }
+    }
+
+    /**
+     * Open a backend from a json:<dir> or mvstore:<file> spec
+     */
+    public static ScriptRepository open(String spec) throws IOException {
+        int separator = spec.indexOf(':');
+        String type = separator > 0 ? spec.substring(0, separator) : "";
+        String location = spec.substring(separator + 1);
+        switch (type) {
+            case "json":
+                return new JsonScriptRepository(location, 200, true);
+            case "mvstore":
+                return new MVStoreScriptRepository(location, 16);
+            default:
+                throw new IllegalArgumentException("Expected json:<dir> or mvstore:<file>, got " + spec);
+        }
+    }
+
+    /**
+     * Copy every script, reading each copy back to check it matches
+     */
+    public static Result migrate(ScriptRepository source, ScriptRepository target) throws IOException {
+        long start = System.currentTimeMillis();
+        Result result = new Result();
+        for (String scriptId : source.ids()) {
+            try {
+                Script script = source.load(scriptId);
+                if (script == null) {
+                    continue;
+                }
+                target.save(script);
+                Script copy = target.load(scriptId);
+                if (copy == null || !gson.toJson(copy).equals(gson.toJson(script))) {
+                    throw new IOException("Copy does not match the original");
+                }
+                result.migrated++;
+            } catch (IOException | RuntimeException e) {
+                log.error("Failed to migrate script {}: {}", scriptId, e.getMessage());
+                result.failed++;
+            }
+        }
+        result.millis = System.currentTimeMillis() - start;
+        return result;
+    }
+
+    public static class Result {
+        private int migrated;
+        private int failed;
+        private long millis;
+
+        public int getMigrated() { return migrated; }
+        public int getFailed() { return failed; }
+        public long getMillis() { return millis; }
+    }
+}
@@ -0,0 +1,46 @@
+package com.veo2.repository;
+
+import com.veo2.model.Script;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.util.List;
+
+/**
+ * Persistent storage of scripts by id
+ * Implementations are thread-safe; callers hold a script's lock while saving it so it is not
+ * changed while it is serialized
+ */
+public interface ScriptRepository extends Closeable {
+
+    /**
+     * Store a script, replacing any earlier version
+     * @return Whether anything was written; false when the stored version is already current
+     */
+    boolean save(Script script) throws IOException;
+
+    /**
+     * @return The script, or null if there is none with this id
+     */
+    Script load(String scriptId) throws IOException;
+
+    /**
+     * @return Whether there was a script to delete
+     */
+    boolean delete(String scriptId) throws IOException;
+
+    /**
+     * Ids of every stored script, in no particular order
+     */
+    List<String> ids() throws IOException;
+
+    /**
+     * Bytes a script takes in storage, 0 if unknown
+     */
+    long sizeOf(String scriptId);
+
+    /**
+     * When a script was last saved, in epoch milliseconds, 0 if unknown
+     */
+    long lastModified(String scriptId);
+}
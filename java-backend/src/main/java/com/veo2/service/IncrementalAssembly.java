@@ -0,0 +1,211 @@
+package com.veo2.service;
+
+import com.veo2.integration.FFmpegProcessor;
+import com.veo2.model.AssemblyJob;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.stream.Stream;
+
+/**
+ * Builds a job's final video while its scenes are still generating
+ * Each finished scene is turned into an MPEG-TS segment right away, and segments are appended
+ * to a running transport stream in timeline order, so once the last scene lands only a
+ * stream-copy remux to MP4 is left. Appends and the final remux run one at a time on the
+ * assembly's own thread, so scene workers only wait for the ordering bookkeeping
+ */
+public class IncrementalAssembly {
+
+    private static final Logger log = LoggerFactory.getLogger(IncrementalAssembly.class);
+
+    private final AssemblyJob job;
+    private final FFmpegProcessor ffmpegProcessor;
+    private final Path workDir;
+    private final String runningPath;
+    private final String outputPath;
+    private final String outputUrl;
+    private final List<Integer> order;
+    private final ExecutorService appender;
+
+    // Scenes reported so far; a null segment means the scene is left out of the video
+    private final Set<Integer> reported = new HashSet<>();
+    private final Map<Integer, String> segments = new HashMap<>();
+    private String referencePath;
+    private int next;
+    private boolean finished;
+
+    // Only touched on the appender thread
+    private int appended;
+    private double offset;
+
+    public IncrementalAssembly(AssemblyJob job, FFmpegProcessor ffmpegProcessor, String videoDir,
+                               String outputFileName, String outputUrl) throws IOException {
+        this.job = job;
+        this.ffmpegProcessor = ffmpegProcessor;
+        this.workDir = Files.createDirectories(Paths.get(videoDir, ".incremental-" + job.getAssemblyJobId()));
+        this.runningPath = workDir.resolve("running.ts").toString();
+        this.outputPath = Paths.get(videoDir, outputFileName).toString();
+        this.outputUrl = outputUrl;
+        // Each scene is appended once; a repeated number would leave the order waiting forever
+        this.order = new ArrayList<>(new LinkedHashSet<>(job.getSceneNumbers()));
+        this.appender = Executors.newSingleThreadExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "veo2-assembly-" + job.getAssemblyJobId());
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    public AssemblyJob getJob() {
+        return job;
+    }
+
+    /**
+     * Add a downloaded scene; runs on the calling thread
+     * The first scene to arrive sets the format the others are normalized to
+     */
+    public void sceneCompleted(int sceneNumber, String videoPath) {
+        String reference;
+        synchronized (this) {
+            if (finished || !reported.add(sceneNumber)) {
+                return;
+            }
+            if (referencePath == null) {
+                referencePath = videoPath;
+            }
+            reference = referencePath;
+        }
+
+        String segment = workDir.resolve(String.format("segment_%03d.ts", sceneNumber)).toString();
+        try {
+            ffmpegProcessor.prepareSegment(videoPath, reference, segment);
+        } catch (IOException | RuntimeException e) {
+            log.warn("Scene {} left out of assembly {}: {}", sceneNumber, job.getAssemblyJobId(), e.getMessage());
+            segment = null;
+        }
+        arrived(sceneNumber, segment);
+    }
+
+    /**
+     * Leave a scene out of the video
+     */
+    public void sceneFailed(int sceneNumber) {
+        synchronized (this) {
+            if (finished || !reported.add(sceneNumber)) {
+                return;
+            }
+        }
+        arrived(sceneNumber, null);
+    }
+
+    /**
+     * Leave out every scene not reported yet, called once generation has stopped
+     */
+    public void generationStopped() {
+        for (Integer sceneNumber : order) {
+            sceneFailed(sceneNumber);
+        }
+    }
+
+    /**
+     * Record a segment and queue every segment that is now next in timeline order for appending
+     */
+    private void arrived(int sceneNumber, String segment) {
+        synchronized (this) {
+            if (finished) {
+                return;
+            }
+            segments.put(sceneNumber, segment);
+
+            while (next < order.size() && segments.containsKey(order.get(next))) {
+                int ready = order.get(next);
+                String readySegment = segments.remove(ready);
+                next++;
+                int progress = next * 100 / (order.size() + 1);
+                appender.execute(() -> append(ready, readySegment, progress));
+            }
+
+            if (next == order.size() && !finished) {
+                finished = true;
+                appender.execute(this::finish);
+                appender.shutdown();
+            }
+        }
+    }
+
+    /**
+     * Append one segment to the running stream; a null segment only advances progress
+     */
+    private void append(int sceneNumber, String segment, int progress) {
+        if (segment != null) {
+            try {
+                offset = ffmpegProcessor.appendSegment(segment, runningPath, offset);
+                appended++;
+            } catch (IOException | RuntimeException e) {
+                log.warn("Failed to append scene {} to assembly {}: {}",
+                        sceneNumber, job.getAssemblyJobId(), e.getMessage());
+            }
+            deleteQuietly(Paths.get(segment));
+        }
+        job.setProgress(progress);
+    }
+
+    private void finish() {
+        try {
+            if (appended == 0) {
+                job.setStatus("failed");
+                job.setErrorMessage("No scenes completed to assemble");
+                return;
+            }
+
+            ffmpegProcessor.finishAppended(runningPath, outputPath);
+
+            job.setOutputFilePath(outputPath);
+            job.setOutputUrl(outputUrl);
+            FFmpegProcessor.VideoMetadata metadata = ffmpegProcessor.probe(outputPath);
+            job.setFileSize(metadata.getFileSize());
+            job.setTotalDuration((int) metadata.getDuration());
+            job.setStatus("completed");
+            job.setProgress(100);
+
+            log.info("Incremental assembly {} completed with {} of {} scenes: {}",
+                    job.getAssemblyJobId(), appended, order.size(), outputPath);
+
+        } catch (IOException | RuntimeException e) {
+            log.error("Incremental assembly {} failed: {}", job.getAssemblyJobId(), e.getMessage());
+            job.setStatus("failed");
+            job.setErrorMessage(e.getMessage());
+        } finally {
+            deleteWorkDir();
+        }
+    }
+
+    private void deleteWorkDir() {
+        try (Stream<Path> paths = Files.walk(workDir)) {
+            paths.sorted(Comparator.reverseOrder()).forEach(IncrementalAssembly::deleteQuietly);
+        } catch (IOException e) {
+            log.debug("Failed to clean up {}: {}", workDir, e.getMessage());
+        }
+    }
+
+    private static void deleteQuietly(Path path) {
+        try {
+            Files.deleteIfExists(path);
+        } catch (IOException e) {
+            log.debug("Failed to delete {}: {}", path, e.getMessage());
+        }
+    }
+}
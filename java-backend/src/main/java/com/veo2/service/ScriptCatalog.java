@@ -0,0 +1,229 @@
+package com.veo2.service;
+
+import com.veo2.model.Script;
+import com.veo2.model.ScriptSummary;
+import com.veo2.repository.ScriptRepository;
+import jakarta.annotation.PostConstruct;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+/**
+ * In-memory listing of every script, rebuilt from the repository at startup and kept current by ScriptService
+ * Listings are sorted and filtered here and paged by cursor, so the repository is not read to serve them
+ */
+@Component
+public class ScriptCatalog {
+
+    private static final Logger log = LoggerFactory.getLogger(ScriptCatalog.class);
+
+    public static final int MAX_PAGE_SIZE = 200;
+
+    @Autowired
+    private ScriptRepository scriptRepository;
+
+    private final Map<String, ScriptSummary> summaries = new ConcurrentHashMap<>();
+
+    /**
+     * Fields listings can be sorted by
+     */
+    public enum SortField {
+        CREATED_AT("createdAt", ScriptSummary::getCreatedAt),
+        UPDATED_AT("updatedAt", ScriptSummary::getUpdatedAt),
+        TITLE("title", summary -> summary.getTitle() != null ? summary.getTitle().toLowerCase(Locale.ROOT) : ""),
+        SIZE("size", ScriptSummary::getSizeBytes),
+        DURATION("duration", summary -> (long) summary.getTotalDuration());
+
+        private final String name;
+        private final Function<ScriptSummary, Comparable<?>> key;
+
+        SortField(String name, Function<ScriptSummary, Comparable<?>> key) {
+            this.name = name;
+            this.key = key;
+        }
+
+        public static SortField of(String name) {
+            for (SortField field : values()) {
+                if (field.name.equalsIgnoreCase(name)) {
+                    return field;
+                }
+            }
+            throw new IllegalArgumentException("Unknown sort field: " + name);
+        }
+
+        private Comparable<?> parse(String value) {
+            return this == TITLE ? value : (Comparable<?>) Long.parseLong(value);
+        }
+    }
+
+    /**
+     * A summary with its sort key
+     */
+    private static class Entry {
+        final Comparable<?> key;
+        final ScriptSummary summary;
+
+        Entry(Comparable<?> key, ScriptSummary summary) {
+            this.key = key;
+            this.summary = summary;
+        }
+    }
+
+    /**
+     * One page of a listing
+     */
+    public static class Page {
+        private final List<ScriptSummary> scripts;
+        private final int total;
+        private final String nextCursor;
+
+        Page(List<ScriptSummary> scripts, int total, String nextCursor) {
+            this.scripts = scripts;
+            this.total = total;
+            this.nextCursor = nextCursor;
+        }
+
+        public List<ScriptSummary> getScripts() { return scripts; }
+
+        /** Scripts matching the filters, across all pages */
+        public int getTotal() { return total; }
+
+        /** Cursor for the page after this one, null on the last page */
+        public String getNextCursor() { return nextCursor; }
+    }
+
+    /**
+     * Load a summary of every stored script
+     */
+    @PostConstruct
+    public void rebuild() throws IOException {
+        long start = System.currentTimeMillis();
+        for (String scriptId : scriptRepository.ids()) {
+            try {
+                Script script = scriptRepository.load(scriptId);
+                if (script != null) {
+                    ScriptSummary summary = ScriptSummary.of(script, scriptRepository.sizeOf(scriptId));
+                    summary.setUpdatedAt(scriptRepository.lastModified(scriptId));
+                    summaries.put(scriptId, summary);
+                }
+            } catch (IOException | RuntimeException e) {
+                log.warn("Script {} left out of the catalog: {}", scriptId, e.getMessage());
+            }
+        }
+        log.info("Script catalog built with {} scripts in {}ms", summaries.size(), System.currentTimeMillis() - start);
+    }
+
+    /**
+     * Record a created or updated script, keeping its last known size on disk
+     */
+    public void update(Script script) {
+        ScriptSummary summary;
+        synchronized (script) {
+            ScriptSummary previous = summaries.get(script.getScriptId());
+            summary = ScriptSummary.of(script, previous != null ? previous.getSizeBytes() : 0);
+        }
+        summaries.put(script.getScriptId(), summary);
+    }
+
+    /**
+     * Record a script's size after it was written
+     */
+    public void updateSize(String scriptId, long sizeBytes) {
+        summaries.computeIfPresent(scriptId, (id, summary) -> {
+            summary.setSizeBytes(sizeBytes);
+            return summary;
+        });
+    }
+
+    public void remove(String scriptId) {
+        summaries.remove(scriptId);
+    }
+
+    public int size() {
+        return summaries.size();
+    }
+
+    /**
+     * List scripts matching the filters, sorted, starting after the cursor
+     * @param status Only scripts with this status, or null for all
+     * @param query Only scripts whose title or topic contains this text, or null for all
+     * @param cursor Next cursor of the previous page, or null for the first page
+     * @throws IllegalArgumentException For an unknown sort field or a malformed cursor
+     */
+    public Page list(String sort, boolean descending, String status, String query, String cursor, int limit) {
+        SortField field = SortField.of(sort);
+        String needle = query != null && !query.isBlank() ? query.toLowerCase(Locale.ROOT) : null;
+
+        // Keys are taken once, as sizes may change while the listing is sorted
+        List<Entry> matching = summaries.values().stream()
+                .filter(summary -> status == null || status.equalsIgnoreCase(summary.getStatus()))
+                .filter(summary -> needle == null || contains(summary.getTitle(), needle) || contains(summary.getTopic(), needle))
+                .map(summary -> new Entry(field.key.apply(summary), summary))
+                .sorted((first, second) -> compare(first, second.key, second.summary.getScriptId(), descending))
+                .collect(Collectors.toList());
+
+        Stream<Entry> remaining = matching.stream();
+        if (cursor != null && !cursor.isBlank()) {
+            // Keyset paging: resume after the last entry's sort key, so inserts and deletes
+            // elsewhere in the listing do not shift or repeat entries
+            String[] after = decodeCursor(cursor);
+            Comparable<?> afterKey = field.parse(after[0]);
+            remaining = remaining.filter(entry -> compare(entry, afterKey, after[1], descending) > 0);
+        }
+
+        int pageSize = Math.max(1, Math.min(limit, MAX_PAGE_SIZE));
+        List<Entry> page = remaining.limit(pageSize + 1L).collect(Collectors.toList());
+        String nextCursor = null;
+        if (page.size() > pageSize) {
+            page = page.subList(0, pageSize);
+            nextCursor = encodeCursor(page.get(pageSize - 1));
+        }
+        return new Page(page.stream().map(entry -> entry.summary).collect(Collectors.toList()), matching.size(), nextCursor);
+    }
+
+    /**
+     * Order of a summary relative to a sort key and id; ties on the key are broken by id so
+     * every entry has one place in the order
+     */
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    private static int compare(Entry entry, Comparable<?> key, String scriptId, boolean descending) {
+        int result = ((Comparable) entry.key).compareTo(key);
+        if (descending) {
+            result = -result;
+        }
+        return result != 0 ? result : entry.summary.getScriptId().compareTo(scriptId);
+    }
+
+    private static boolean contains(String text, String needle) {
+        return text != null && text.toLowerCase(Locale.ROOT).contains(needle);
+    }
+
+    private static String encodeCursor(Entry last) {
+        String key = last.key + "\n" + last.summary.getScriptId();
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(key.getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * Sort key and id of the entry a cursor resumes after
+     */
+    private static String[] decodeCursor(String cursor) {
+        String key = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+        int separator = key.lastIndexOf('\n');
+        if (separator < 0) {
+            throw new IllegalArgumentException("Malformed cursor");
+        }
+        return new String[]{key.substring(0, separator), key.substring(separator + 1)};
+    }
+}
@@ -1,21 +1,30 @@
 package com.veo2.service;
 
-import com.google.gson.Gson;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Interner;
 import com.veo2.integration.GeminiApiClient;
 import com.veo2.model.Script;
-import com.veo2.util.FileUtils;
+import com.veo2.repository.ScriptRepository;
 import com.veo2.util.MockDataGenerator;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import jakarta.annotation.PreDestroy;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 
-import java.io.FileReader;
-import java.io.FileWriter;
 import java.io.IOException;
-import java.util.HashMap;
 import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
 
 @Service
 public class ScriptService {
@@ -26,16 +35,58 @@ public class ScriptService {
     private GeminiApiClient geminiApiClient;
 
     @Autowired
-    private FileUtils fileUtils;
+    private MockDataGenerator mockDataGenerator;
 
     @Autowired
-    private MockDataGenerator mockDataGenerator;
+    private ScriptRepository scriptRepository;
+
+    @Autowired
+    private ScriptCatalog scriptCatalog;
 
-    @Value("${veo2.storage.scripts-dir}")
-    private String scriptsDir;
+    // Scripts shared by request and generation threads, weighted by scene count
+    private final Cache<String, Script> scriptCache;
+
+    // Updated scripts not written yet; held here so eviction from the cache cannot lose them
+    private final Map<String, Script> dirtyScripts = new ConcurrentHashMap<>();
+    // Scripts taken from the dirty set whose write has not finished yet
+    private final Map<String, Script> writingScripts = new ConcurrentHashMap<>();
+    // Ids of deleted scripts, so updates from jobs still running and writes already under way
+    // cannot bring them back; ids are never reused
+    private final Set<String> deletedScripts = ConcurrentHashMap.newKeySet();
+    // One lock per script id, held while a script is written or deleted
+    private final Interner<String> scriptLocks = Interner.newWeakInterner();
+    private final ScheduledExecutorService flusher;
+    private final Counter scriptWrites;
+
+    public ScriptService(@Value("${veo2.storage.script-cache.max-weight:2000}") long maxWeight,
+                         @Value("${veo2.storage.write-behind-interval:2000}") long writeBehindInterval,
+                         MeterRegistry registry) {
+        this.scriptCache = Caffeine.newBuilder()
+                .maximumWeight(maxWeight)
+                .weigher((String scriptId, Script script) -> weigh(script))
+                .recordStats()
+                .build();
+        // cache.gets (hit/miss), cache.puts, cache.evictions, cache.size
+        CaffeineCacheMetrics.monitor(registry, scriptCache, "scripts");
+
+        if (writeBehindInterval > 0) {
+            this.flusher = Executors.newSingleThreadScheduledExecutor(runnable -> {
+                Thread thread = new Thread(runnable, "veo2-script-flush");
+                thread.setDaemon(true);
+                return thread;
+            });
+            flusher.scheduleWithFixedDelay(this::flush, writeBehindInterval, writeBehindInterval, TimeUnit.MILLISECONDS);
+        } else {
+            this.flusher = null;
+        }
 
-    private final Gson gson = new Gson();
-    private final Map<String, Script> scriptCache = new HashMap<>();
+        Gauge.builder("veo2.scripts.dirty", dirtyScripts, Map::size)
+                .description("Updated scripts waiting to be written")
+                .register(registry);
+        this.scriptWrites = Counter.builder("veo2.scripts.writes")
+                .description("Script files written")
+                .register(registry);
+    }
 
     /**
      * Generate script using Gemini API or Mock Data
@@ -71,6 +122,8 @@ public class ScriptService {
 
             // Cache script
             scriptCache.put(script.getScriptId(), script);
+            scriptCatalog.update(script);
+            scriptCatalog.updateSize(script.getScriptId(), scriptRepository.sizeOf(script.getScriptId()));
 
             log.info("Script generated successfully: {}", script.getScriptId());
             return script;
@@ -85,57 +138,93 @@ public class ScriptService {
      * Get script by ID
      */
     public Script getScript(String scriptId) {
-        // Check cache first
-        if (scriptCache.containsKey(scriptId)) {
-            return scriptCache.get(scriptId);
-        }
-
-        // Load from file
-        try {
-            Script script = loadScript(scriptId);
-            scriptCache.put(scriptId, script);
-            return script;
-        } catch (IOException e) {
-            log.error("Failed to load script {}: {}", scriptId, e.getMessage());
+        if (deletedScripts.contains(scriptId)) {
             return null;
         }
+        // Concurrent misses for the same id wait for one load from file; missing scripts are not cached.
+        // A script evicted before its pending update was written comes back from the dirty set, so
+        // there is only ever one live copy and it is newer than the stored one
+        return scriptCache.get(scriptId, id -> {
+            Script pending = dirtyScripts.getOrDefault(id, writingScripts.get(id));
+            if (pending != null) {
+                return pending;
+            }
+            try {
+                return loadScript(id);
+            } catch (IOException e) {
+                log.error("Failed to load script {}: {}", id, e.getMessage());
+                return null;
+            }
+        });
     }
 
     /**
-     * Save script to JSON file
+     * Cache weight of a script: one for the script plus one per scene
      */
-    private void saveScript(Script script) throws IOException {
-        fileUtils.createDirectory(scriptsDir);
+    private static int weigh(Script script) {
+        return 1 + (script.getScenes() != null ? script.getScenes().size() : 0);
+    }
 
-        String filePath = String.format("%s/%s.json", scriptsDir, script.getScriptId());
-        try (FileWriter writer = new FileWriter(filePath)) {
-            gson.toJson(script, writer);
-            log.info("Script saved to: {}", filePath);
+    /**
+     * Save script to the repository
+     */
+    private void saveScript(Script script) throws IOException {
+        boolean written;
+        // VideoService mutates scenes while holding the script's lock, so it is serialized consistently;
+        // the id lock, always taken second, orders the write against a delete
+        synchronized (script) {
+            synchronized (scriptLocks.intern(script.getScriptId())) {
+                if (deletedScripts.contains(script.getScriptId())) {
+                    log.debug("Script {} was deleted, not writing it", script.getScriptId());
+                    return;
+                }
+                written = scriptRepository.save(script);
+            }
+        }
+        if (written) {
+            scriptWrites.increment();
+            scriptCatalog.updateSize(script.getScriptId(), scriptRepository.sizeOf(script.getScriptId()));
         }
     }
 
     /**
-     * Load script from JSON file
+     * Load script from the repository
      */
     private Script loadScript(String scriptId) throws IOException {
-        String filePath = String.format("%s/%s.json", scriptsDir, scriptId);
-
-        if (!fileUtils.fileExists(filePath)) {
+        Script script = scriptRepository.load(scriptId);
+        if (script == null) {
             throw new IOException("Script file not found: " + scriptId);
         }
-
-        try (FileReader reader = new FileReader(filePath)) {
-            return gson.fromJson(reader, Script.class);
-        }
+        return script;
     }
 
     /**
      * Update script
+     * With write-behind the script is only marked dirty and written by the next flush,
+     * so repeated updates between flushes cost one write
      */
     public Script updateScript(Script script) {
+        String scriptId = script.getScriptId();
+        if (deletedScripts.contains(scriptId)) {
+            log.debug("Ignoring update of deleted script {}", scriptId);
+            return script;
+        }
+        scriptCache.put(scriptId, script);
+        scriptCatalog.update(script);
+        if (flusher != null) {
+            dirtyScripts.put(scriptId, script);
+        }
+        // A delete that ran since the check above may have missed the entries just added
+        if (deletedScripts.contains(scriptId)) {
+            forget(scriptId);
+            return script;
+        }
+        if (flusher != null) {
+            return script;
+        }
+
         try {
             saveScript(script);
-            scriptCache.put(script.getScriptId(), script);
             log.info("Script updated: {}", script.getScriptId());
             return script;
         } catch (IOException e) {
@@ -144,24 +233,88 @@ public class ScriptService {
         }
     }
 
+    /**
+     * Write a script now if it has pending updates, e.g. when a job finishes
+     */
+    public void flushScript(String scriptId) {
+        Script script = dirtyScripts.remove(scriptId);
+        if (script != null) {
+            writingScripts.put(scriptId, script);
+            try {
+                writeDirty(script);
+            } finally {
+                writingScripts.remove(scriptId, script);
+            }
+        }
+    }
+
+    /**
+     * Write every script with pending updates
+     */
+    public void flush() {
+        for (String scriptId : dirtyScripts.keySet()) {
+            flushScript(scriptId);
+        }
+    }
+
+    private void writeDirty(Script script) {
+        try {
+            saveScript(script);
+        } catch (IOException | RuntimeException e) {
+            // Keep it dirty for the next flush unless a newer update already replaced it or it was deleted
+            dirtyScripts.putIfAbsent(script.getScriptId(), script);
+            if (deletedScripts.contains(script.getScriptId())) {
+                dirtyScripts.remove(script.getScriptId(), script);
+            }
+            log.error("Failed to write script {}: {}", script.getScriptId(), e.getMessage());
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        if (flusher != null) {
+            flusher.shutdown();
+            try {
+                flusher.awaitTermination(10, TimeUnit.SECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+        log.info("Writing {} pending scripts before shutdown", dirtyScripts.size());
+        flush();
+    }
+
     /**
      * Delete script
+     * The id is remembered, so later updates and writes of it are dropped; a write already in
+     * progress finishes before the files are removed
      */
     public boolean deleteScript(String scriptId) {
-        String filePath = String.format("%s/%s.json", scriptsDir, scriptId);
-        scriptCache.remove(scriptId);
-        return fileUtils.deleteFile(filePath);
+        deletedScripts.add(scriptId);
+        forget(scriptId);
+        synchronized (scriptLocks.intern(scriptId)) {
+            try {
+                return scriptRepository.delete(scriptId);
+            } catch (IOException e) {
+                log.error("Failed to delete script {}: {}", scriptId, e.getMessage());
+                return false;
+            }
+        }
+    }
+
+    private void forget(String scriptId) {
+        dirtyScripts.remove(scriptId);
+        writingScripts.remove(scriptId);
+        scriptCache.invalidate(scriptId);
+        scriptCatalog.remove(scriptId);
     }
 
     /**
-     * Get all script IDs
+     * Page through script summaries from the catalog
+     * @see ScriptCatalog#list
      */
-    public String[] getAllScriptIds() {
-        fileUtils.createDirectory(scriptsDir);
-        java.io.File[] files = fileUtils.getFilesWithExtension(scriptsDir, "json");
-
-        return java.util.Arrays.stream(files)
-                .map(file -> file.getName().replace(".json", ""))
-                .toArray(String[]::new);
+    public ScriptCatalog.Page listScripts(String sort, boolean descending, String status, String query,
+                                          String cursor, int limit) {
+        return scriptCatalog.list(sort, descending, status, query, cursor, limit);
     }
 }
@@ -7,15 +7,22 @@ import com.veo2.model.VideoJob;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
 import org.springframework.stereotype.Service;
 
 import java.io.File;
 import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Paths;
 import java.util.List;
 import java.util.Map;
 import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeoutException;
 
 /**
  * Service for direct VEO API video generation
@@ -32,9 +39,23 @@ public class VeoDirectService {
     @Autowired
     private ScriptService scriptService;
 
+    @Autowired
+    @Qualifier("generationExecutor")
+    private ThreadPoolTaskExecutor generationExecutor;
+
+    @Autowired
+    private VeoOperationTracker operationTracker;
+
+    @Autowired
+    @Qualifier("downloadExecutor")
+    private ThreadPoolTaskExecutor downloadExecutor;
+
     @Value("${veo2.storage.videos-dir}")
     private String videosDir;
 
+    @Value("${veo2.veo.polling.default-deadline:600000}")
+    private long defaultDeadline;
+
     private final Map<String, VideoJob> jobCache = new ConcurrentHashMap<>();
     private final Map<String, VeoApiClient.VeoVideoResponse> operationCache = new ConcurrentHashMap<>();
 
@@ -45,6 +66,14 @@ public class VeoDirectService {
      * @return Video job with operation ID
      */
     public VideoJob generateVideoDirectAPI(String scriptId, int sceneNumber) {
+        return generateVideoDirectAPI(scriptId, sceneNumber, null);
+    }
+
+    /**
+     * Generate video using direct VEO API with a custom deadline
+     * @param deadlineSeconds Seconds the job may take before it times out, null for the default
+     */
+    public VideoJob generateVideoDirectAPI(String scriptId, int sceneNumber, Long deadlineSeconds) {
         log.info("Starting direct VEO API video generation: script={}, scene={}", scriptId, sceneNumber);
 
         // Get script and scene
@@ -58,6 +87,9 @@ public class VeoDirectService {
                 .findFirst()
                 .orElseThrow(() -> new RuntimeException("Scene not found: " + sceneNumber));
 
+        long startTime = System.currentTimeMillis();
+        long timeoutMillis = deadlineSeconds != null && deadlineSeconds > 0 ? deadlineSeconds * 1000 : defaultDeadline;
+
         // Create video job
         VideoJob job = VideoJob.builder()
                 .jobId(VideoJob.generateJobId())
@@ -66,135 +98,174 @@ public class VeoDirectService {
                 .status("pending")
                 .totalScenes(1)
                 .completedScenes(0)
-                .startTime(System.currentTimeMillis())
+                .startTime(startTime)
+                .deadline(startTime + timeoutMillis)
                 .progress(0)
                 .build();
 
         jobCache.put(job.getJobId(), job);
 
         // Start async video generation
-        CompletableFuture.runAsync(() -> {
-            try {
-                job.setStatus("generating");
-                scene.setStatus("generating");
-
-                // Call VEO API
-                log.info("Calling VEO API for scene {}: {}", sceneNumber, scene.getVeoPrompt());
-
-                VeoApiClient.VeoVideoResponse response = veoApiClient.generateVideo(
-                        scene.getVeoPrompt(),
-                        scene.getDuration(),
-                        script.getAspectRatio()
-                );
-
-                // Cache operation for status checking
-                operationCache.put(response.getOperationId(), response);
-
-                // Update job with operation ID
-                job.setCurrentOperationId(response.getOperationId());
-                job.setStatus("processing");
-                job.setProgress(25);
-
-                log.info("VEO API video generation started: operationId={}", response.getOperationId());
-
-                // Poll for completion
-                pollVideoStatus(job, scene, response.getOperationId());
-
-            } catch (Exception e) {
-                log.error("Failed to generate video via VEO API", e);
-                job.setStatus("failed");
-                job.setErrorMessage(e.getMessage());
-                scene.setStatus("failed");
-            }
-        });
+        try {
+            CompletableFuture.runAsync(() -> startGeneration(job, script, scene), generationExecutor);
+        } catch (RejectedExecutionException e) {
+            failJob(job, scene, "Generation queue is full, try again later");
+            throw new RuntimeException("Generation queue is full", e);
+        }
 
         return job;
     }
 
     /**
-     * Poll VEO API for video completion
+     * Submit the generation request and hand the operation over to the tracker
+     */
+    private void startGeneration(VideoJob job, Script script, Scene scene) {
+        int sceneNumber = scene.getSceneNumber();
+        try {
+            job.setStatus("generating");
+            scene.setStatus("generating");
+
+            // Call VEO API
+            log.info("Calling VEO API for scene {}: {}", sceneNumber, scene.getVeoPrompt());
+
+            VeoApiClient.VeoVideoResponse response = veoApiClient.generateVideo(
+                    scene.getVeoPrompt(),
+                    scene.getDuration(),
+                    script.getAspectRatio()
+            );
+
+            // Cache operation for status checking
+            operationCache.put(response.getOperationId(), response);
+
+            // Update job with operation ID
+            job.setCurrentOperationId(response.getOperationId());
+            job.setStatus("processing");
+            job.setProgress(25);
+
+            log.info("VEO API video generation started: operationId={}", response.getOperationId());
+
+            // Completion is delivered by the tracker, no thread waits for it
+            operationTracker.track(response.getOperationId(), job.getDeadline(), status -> updateProgress(job, scene, status))
+                    .whenComplete((status, error) -> onOperationFinished(job, scene, status, error));
+
+        } catch (Exception e) {
+            log.error("Failed to generate video via VEO API", e);
+            failJob(job, scene, e.getMessage());
+        }
+    }
+
+    /**
+     * Apply an intermediate status check to the job
+     */
+    private void updateProgress(VideoJob job, Scene scene, VeoApiClient.VeoStatusResponse status) {
+        job.setProgress(Math.max(job.getProgress(), status.getProgress()));
+        scene.setProgress(status.getProgress());
+    }
+
+    /**
+     * Called by the tracker when the operation reaches a terminal state
      */
-    private void pollVideoStatus(VideoJob job, Scene scene, String operationId) {
-        int maxAttempts = 60; // 5 minutes (60 * 5s)
-        int attempt = 0;
-
-        while (attempt < maxAttempts) {
-            try {
-                Thread.sleep(5000); // Wait 5 seconds
-
-                VeoApiClient.VeoStatusResponse status = veoApiClient.checkStatus(operationId);
-
-                // Update progress
-                job.setProgress(Math.max(job.getProgress(), status.getProgress()));
-                scene.setProgress(status.getProgress());
-
-                log.info("VEO status check {}/{}: operationId={}, status={}, progress={}%",
-                         attempt + 1, maxAttempts, operationId, status.getStatus(), status.getProgress());
-
-                if ("COMPLETED".equalsIgnoreCase(status.getStatus())) {
-                    // Video is ready!
-                    log.info("VEO video completed");
-
-                    // Download video
-                    String fileName = String.format("scene_%d_%s.mp4", scene.getSceneNumber(), job.getJobId());
-                    String outputPath = videosDir + File.separator + fileName;
-
-                    new File(videosDir).mkdirs();
-
-                    // Check if video is base64 or URL
-                    if (status.getVideoBase64() != null && !status.getVideoBase64().isEmpty()) {
-                        log.info("Downloading video from base64 data");
-                        veoApiClient.downloadVideo(status.getVideoBase64(), true, outputPath);
-                    } else if (status.getVideoUrl() != null && !status.getVideoUrl().isEmpty()) {
-                        log.info("Downloading video from URL: {}", status.getVideoUrl());
-                        veoApiClient.downloadVideo(status.getVideoUrl(), false, outputPath);
-                    } else {
-                        throw new IOException("No video data or URL in response");
-                    }
-
-                    // Update scene and job
-                    scene.setStatus("completed");
-                    scene.setVideoUrl(status.getVideoUrl());
-                    scene.setVideoFilePath(outputPath);
-                    scene.setProgress(100);
-
-                    job.setStatus("completed");
-                    job.setProgress(100);
-                    job.setCompletedScenes(1);
-                    job.setEndTime(System.currentTimeMillis());
-
-                    log.info("Video downloaded successfully: {}", outputPath);
-                    return;
-
-                } else if ("FAILED".equalsIgnoreCase(status.getStatus())) {
-                    // Video generation failed
-                    log.error("VEO video generation failed: {}", status.getErrorMessage());
-
-                    job.setStatus("failed");
-                    job.setErrorMessage(status.getErrorMessage());
-                    scene.setStatus("failed");
-                    return;
-                }
-
-                attempt++;
-
-            } catch (InterruptedException e) {
-                log.error("Status polling interrupted", e);
-                Thread.currentThread().interrupt();
-                break;
-            } catch (IOException e) {
-                log.error("Failed to check VEO status", e);
-                attempt++;
+    private void onOperationFinished(VideoJob job, Scene scene, VeoApiClient.VeoStatusResponse status, Throwable error) {
+        if (error != null) {
+            Throwable cause = error instanceof CompletionException && error.getCause() != null ? error.getCause() : error;
+            if (cause instanceof TimeoutException) {
+                log.error("VEO video generation timeout for job {}", job.getJobId());
+                job.setStatus("timeout");
+                job.setErrorMessage(cause.getMessage());
+                job.setEndTime(System.currentTimeMillis());
+                scene.setStatus("timeout");
+            } else {
+                log.error("VEO operation tracking failed for job {}", job.getJobId(), cause);
+                failJob(job, scene, cause.getMessage());
             }
+            return;
         }
 
-        // Timeout
-        if (attempt >= maxAttempts) {
-            log.error("VEO video generation timeout after {} attempts", maxAttempts);
-            job.setStatus("timeout");
-            job.setErrorMessage("Video generation timeout after 5 minutes");
-            scene.setStatus("timeout");
+        if ("FAILED".equalsIgnoreCase(status.getStatus())) {
+            // Video generation failed
+            log.error("VEO video generation failed: {}", status.getErrorMessage());
+            failJob(job, scene, status.getErrorMessage());
+            return;
         }
+
+        // Video is ready!
+        log.info("VEO video completed for job {}", job.getJobId());
+        updateProgress(job, scene, status);
+        job.setStatus("downloading");
+        scene.setStatus("downloading");
+
+        try {
+            downloadExecutor.execute(() -> downloadCompletedVideo(job, scene, status));
+        } catch (RejectedExecutionException e) {
+            log.error("Download queue is full, dropping completed video for job {}", job.getJobId());
+            discardSpooledVideo(status);
+            failJob(job, scene, "Download queue is full");
+        }
+    }
+
+    /**
+     * Download a completed video and finish the job
+     */
+    private void downloadCompletedVideo(VideoJob job, Scene scene, VeoApiClient.VeoStatusResponse status) {
+        try {
+            String fileName = String.format("scene_%d_%s.mp4", scene.getSceneNumber(), job.getJobId());
+            String outputPath = videosDir + File.separator + fileName;
+
+            new File(videosDir).mkdirs();
+
+            // Inline video was already decoded to disk while polling, otherwise fetch the URI
+            if (status.getVideoFilePath() != null) {
+                log.info("Saving inline video from {}", status.getVideoFilePath());
+                veoApiClient.saveSpooledVideo(status.getVideoFilePath(), outputPath);
+            } else if (status.getVideoUrl() != null && !status.getVideoUrl().isEmpty()) {
+                log.info("Downloading video from URL: {}", status.getVideoUrl());
+                veoApiClient.downloadVideo(status.getVideoUrl(), outputPath);
+            } else {
+                throw new IOException("No video data or URL in response");
+            }
+
+            // Update scene and job
+            scene.setStatus("completed");
+            scene.setVideoUrl(status.getVideoUrl());
+            scene.setVideoFilePath(outputPath);
+            scene.setProgress(100);
+
+            job.setStatus("completed");
+            job.setProgress(100);
+            job.setCompletedScenes(1);
+            job.setEndTime(System.currentTimeMillis());
+
+            log.info("Video downloaded successfully: {}", outputPath);
+
+        } catch (Exception e) {
+            log.error("Failed to download VEO video for job {}", job.getJobId(), e);
+            discardSpooledVideo(status);
+            failJob(job, scene, e.getMessage());
+        }
+    }
+
+    /**
+     * Remove an inline video that was decoded but will not be used
+     */
+    private void discardSpooledVideo(VeoApiClient.VeoStatusResponse status) {
+        if (status.getVideoFilePath() == null) {
+            return;
+        }
+        try {
+            Files.deleteIfExists(Paths.get(status.getVideoFilePath()));
+        } catch (IOException e) {
+            log.warn("Failed to delete spooled video {}", status.getVideoFilePath());
+        }
+    }
+
+    /**
+     * Mark job and scene as failed
+     */
+    private void failJob(VideoJob job, Scene scene, String errorMessage) {
+        job.setStatus("failed");
+        job.setErrorMessage(errorMessage);
+        job.setEndTime(System.currentTimeMillis());
+        scene.setStatus("failed");
     }
 
     /**
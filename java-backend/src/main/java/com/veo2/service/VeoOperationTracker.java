@@ -0,0 +1,242 @@
+package com.veo2.service;
+
+import com.veo2.integration.VeoApiClient;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+
+/**
+ * Tracks in-flight VEO long-running operations
+ * A small scheduler times every status check, the polling pool runs the HTTP call,
+ * and callers are notified through a future instead of blocking a thread per operation
+ */
+@Component
+public class VeoOperationTracker {
+
+    private static final Logger log = LoggerFactory.getLogger(VeoOperationTracker.class);
+
+    @Autowired
+    private VeoApiClient veoApiClient;
+
+    @Autowired
+    @Qualifier("pollingExecutor")
+    private ThreadPoolTaskExecutor pollingExecutor;
+
+    @Autowired
+    private VeoPollingPolicy pollingPolicy;
+
+    @Value("${veo2.veo.polling.max-consecutive-errors:10}")
+    private int maxConsecutiveErrors;
+
+    private final Map<String, TrackedOperation> operations = new ConcurrentHashMap<>();
+    private final ScheduledExecutorService scheduler;
+    private final Counter statusChecks;
+    private final Counter failedStatusChecks;
+
+    public VeoOperationTracker(@Value("${veo2.veo.polling.scheduler-threads:1}") int schedulerThreads,
+                               MeterRegistry registry) {
+        AtomicInteger threadCount = new AtomicInteger();
+        this.scheduler = Executors.newScheduledThreadPool(schedulerThreads, runnable -> {
+            Thread thread = new Thread(runnable, "veo2-poll-timer-" + threadCount.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+
+        Gauge.builder("veo2.veo.operations.pending", operations, Map::size)
+                .description("VEO operations waiting for completion")
+                .register(registry);
+        this.statusChecks = Counter.builder("veo2.veo.status.checks")
+                .description("VEO status calls made")
+                .tag("outcome", "ok")
+                .register(registry);
+        this.failedStatusChecks = Counter.builder("veo2.veo.status.checks")
+                .description("VEO status calls made")
+                .tag("outcome", "error")
+                .register(registry);
+    }
+
+    /**
+     * Start tracking an operation
+     * @param operationId Operation name returned by generateVideo
+     * @param deadline Epoch millis after which the operation is reported as timed out
+     * @param onProgress Called after every successful non-terminal status check
+     * @return Future completed with the COMPLETED or FAILED status, or exceptionally on timeout
+     */
+    public CompletableFuture<VeoApiClient.VeoStatusResponse> track(String operationId, long deadline,
+                                                                  Consumer<VeoApiClient.VeoStatusResponse> onProgress) {
+        TrackedOperation operation = new TrackedOperation(operationId, deadline, onProgress);
+
+        TrackedOperation existing = operations.putIfAbsent(operationId, operation);
+        if (existing != null) {
+            log.warn("Operation {} is already tracked", operationId);
+            return existing.future;
+        }
+
+        log.info("Tracking VEO operation {} ({} pending)", operationId, operations.size());
+        schedule(operation);
+        return operation.future;
+    }
+
+    /**
+     * Stop tracking an operation without completing it
+     */
+    public boolean cancel(String operationId) {
+        TrackedOperation operation = operations.remove(operationId);
+        if (operation == null) {
+            return false;
+        }
+        return operation.future.cancel(false);
+    }
+
+    /**
+     * Number of operations still waiting for completion
+     */
+    public int getPendingCount() {
+        return operations.size();
+    }
+
+    private void schedule(TrackedOperation operation) {
+        long now = System.currentTimeMillis();
+        long delay = pollingPolicy.nextDelay(now - operation.startedAt, operation.consecutiveErrors,
+                operation.deadline - now);
+
+        try {
+            scheduler.schedule(() -> dispatch(operation), delay, TimeUnit.MILLISECONDS);
+        } catch (RejectedExecutionException e) {
+            finish(operation, null, new IllegalStateException("Operation tracker is shut down"));
+        }
+    }
+
+    /**
+     * Timer fired: run the status check on the polling pool so timer threads never block on I/O
+     */
+    private void dispatch(TrackedOperation operation) {
+        if (operation.future.isDone()) {
+            operations.remove(operation.operationId);
+            return;
+        }
+
+        try {
+            pollingExecutor.execute(() -> checkStatus(operation));
+        } catch (RejectedExecutionException e) {
+            // Polling pool saturated, try again on the next tick
+            log.warn("Polling pool saturated, deferring status check for {}", operation.operationId);
+            if (System.currentTimeMillis() >= operation.deadline) {
+                finish(operation, null, new TimeoutException("Video generation timeout while polling pool was saturated"));
+                return;
+            }
+            schedule(operation);
+        }
+    }
+
+    private void checkStatus(TrackedOperation operation) {
+        try {
+            VeoApiClient.VeoStatusResponse status = veoApiClient.checkStatus(operation.operationId);
+            statusChecks.increment();
+            operation.checks++;
+            operation.consecutiveErrors = 0;
+
+            log.info("VEO status check #{}: operationId={}, status={}, progress={}%",
+                    operation.checks, operation.operationId, status.getStatus(), status.getProgress());
+
+            if ("COMPLETED".equalsIgnoreCase(status.getStatus())) {
+                pollingPolicy.recordCompletion(System.currentTimeMillis() - operation.startedAt);
+                finish(operation, status, null);
+                return;
+            }
+            if ("FAILED".equalsIgnoreCase(status.getStatus())) {
+                finish(operation, status, null);
+                return;
+            }
+
+            notifyProgress(operation, status);
+
+        } catch (IOException e) {
+            // Errors back off but do not count as polls
+            failedStatusChecks.increment();
+            operation.consecutiveErrors++;
+            log.error("Failed to check VEO status for {} ({} in a row): {}",
+                    operation.operationId, operation.consecutiveErrors, e.getMessage());
+
+            if (operation.consecutiveErrors >= maxConsecutiveErrors) {
+                finish(operation, null, new IOException(
+                        "VEO status check failed " + operation.consecutiveErrors + " times in a row", e));
+                return;
+            }
+        }
+
+        if (System.currentTimeMillis() >= operation.deadline) {
+            long seconds = (operation.deadline - operation.startedAt) / 1000;
+            log.error("VEO operation {} missed its deadline after {} checks", operation.operationId, operation.checks);
+            finish(operation, null, new TimeoutException("Video generation timeout after " + seconds + " seconds"));
+            return;
+        }
+
+        schedule(operation);
+    }
+
+    private void notifyProgress(TrackedOperation operation, VeoApiClient.VeoStatusResponse status) {
+        if (operation.onProgress == null) {
+            return;
+        }
+        try {
+            operation.onProgress.accept(status);
+        } catch (Exception e) {
+            log.warn("Progress callback failed for {}: {}", operation.operationId, e.getMessage());
+        }
+    }
+
+    private void finish(TrackedOperation operation, VeoApiClient.VeoStatusResponse status, Throwable error) {
+        operations.remove(operation.operationId);
+        if (error != null) {
+            operation.future.completeExceptionally(error);
+        } else {
+            operation.future.complete(status);
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        log.info("Stopping VEO operation tracker with {} pending operations", operations.size());
+        scheduler.shutdownNow();
+    }
+
+    /**
+     * Registry entry for one pending operation
+     */
+    private static class TrackedOperation {
+        private final String operationId;
+        private final long startedAt = System.currentTimeMillis();
+        private final long deadline;
+        private final Consumer<VeoApiClient.VeoStatusResponse> onProgress;
+        private final CompletableFuture<VeoApiClient.VeoStatusResponse> future = new CompletableFuture<>();
+        private volatile int checks;
+        private volatile int consecutiveErrors;
+
+        private TrackedOperation(String operationId, long deadline, Consumer<VeoApiClient.VeoStatusResponse> onProgress) {
+            this.operationId = operationId;
+            this.deadline = deadline;
+            this.onProgress = onProgress;
+        }
+    }
+}
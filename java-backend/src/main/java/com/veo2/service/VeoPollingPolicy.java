@@ -0,0 +1,99 @@
+package com.veo2.service;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Decides when the next VEO status check should run
+ * Polls sparsely early in an operation and densely around the expected completion time,
+ * which is learned from the operations that actually finished
+ */
+@Component
+public class VeoPollingPolicy {
+
+    private static final Logger log = LoggerFactory.getLogger(VeoPollingPolicy.class);
+
+    // Weight of the newest observation in the expected duration average
+    private static final double EWMA_ALPHA = 0.2;
+
+    // Fraction of the remaining distance to the expected completion used as the next delay
+    private static final double APPROACH_FACTOR = 0.25;
+
+    @Value("${veo2.veo.polling.min-interval:2000}")
+    private long minInterval;
+
+    @Value("${veo2.veo.polling.max-interval:20000}")
+    private long maxInterval;
+
+    @Value("${veo2.veo.polling.jitter:0.2}")
+    private double jitter;
+
+    @Value("${veo2.veo.polling.error-backoff-base:2000}")
+    private long errorBackoffBase;
+
+    @Value("${veo2.veo.polling.error-backoff-max:60000}")
+    private long errorBackoffMax;
+
+    private volatile double expectedDuration;
+
+    public VeoPollingPolicy(@Value("${veo2.veo.polling.expected-duration:90000}") long initialExpectedDuration) {
+        this.expectedDuration = initialExpectedDuration;
+    }
+
+    /**
+     * Delay before the next status check
+     * @param elapsed Milliseconds since the operation was submitted
+     * @param consecutiveErrors Failed checks since the last successful one
+     * @param remaining Milliseconds left until the job deadline
+     */
+    public long nextDelay(long elapsed, int consecutiveErrors, long remaining) {
+        long delay;
+
+        if (consecutiveErrors > 0) {
+            // Exponential backoff while the API is failing
+            int exponent = Math.min(consecutiveErrors - 1, 20);
+            delay = Math.min(errorBackoffMax, errorBackoffBase << exponent);
+        } else {
+            // Far from the expected completion: sparse, close to it or overdue: dense
+            double distance = Math.max(0, expectedDuration - elapsed);
+            delay = clamp((long) (distance * APPROACH_FACTOR), minInterval, maxInterval);
+        }
+
+        delay = applyJitter(delay);
+
+        // Always get one last check in right at the deadline
+        return Math.max(0, Math.min(delay, remaining));
+    }
+
+    /**
+     * Feed back how long a successful operation took
+     */
+    public void recordCompletion(long duration) {
+        double updated = EWMA_ALPHA * duration + (1 - EWMA_ALPHA) * expectedDuration;
+        expectedDuration = updated;
+        log.debug("VEO operation took {}ms, expected duration now {}ms", duration, (long) updated);
+    }
+
+    /**
+     * Current estimate of how long an operation takes (milliseconds)
+     */
+    public long getExpectedDuration() {
+        return (long) expectedDuration;
+    }
+
+    private long applyJitter(long delay) {
+        if (jitter <= 0) {
+            return delay;
+        }
+        double factor = 1 + ThreadLocalRandom.current().nextDouble(-jitter, jitter);
+        return (long) (delay * factor);
+    }
+
+    private long clamp(long value, long min, long max) {
+        return Math.max(min, Math.min(max, value));
+    }
+}
@@ -1,19 +1,29 @@
 package com.veo2.service;
 
 import com.veo2.integration.FFmpegProcessor;
+import com.veo2.integration.FFmpegProgress;
 import com.veo2.integration.FlowAutomation;
+import com.veo2.integration.FlowSession;
+import com.veo2.integration.FlowSessionPool;
 import com.veo2.model.*;
 import com.veo2.util.FileUtils;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
 import org.springframework.stereotype.Service;
 
+import java.io.File;
 import java.io.IOException;
 import java.util.*;
 import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.function.UnaryOperator;
+import java.util.regex.Pattern;
 
 @Service
 public class VideoService {
@@ -26,30 +36,84 @@ public class VideoService {
     @Autowired
     private FlowAutomation flowAutomation;
 
+    @Autowired
+    private FlowSessionPool flowSessionPool;
+
     @Autowired
     private FFmpegProcessor ffmpegProcessor;
 
     @Autowired
     private FileUtils fileUtils;
 
+    @Autowired
+    @Qualifier("generationExecutor")
+    private ThreadPoolTaskExecutor generationExecutor;
+
+    @Autowired
+    @Qualifier("assemblyExecutor")
+    private ThreadPoolTaskExecutor assemblyExecutor;
+
     @Value("${veo2.storage.videos-dir}")
     private String videosDir;
 
     @Value("${server.port}")
     private int serverPort;
 
+    @Value("${veo2.video.scene-concurrency:3}")
+    private int sceneConcurrency;
+
+    @Value("${veo2.video.pipeline-depth:1}")
+    private int pipelineDepth;
+
+    @Value("${veo2.video.sprite-frames:0}")
+    private int spriteFrames;
+
+    @Value("${veo2.video.sprite-frame-width:160}")
+    private int spriteFrameWidth;
+
+    @Value("${veo2.video.incremental-assembly:false}")
+    private boolean incrementalAssembly;
+
+    @Value("${veo2.video.hls-scenes:false}")
+    private boolean hlsScenes;
+
     private final Map<String, VideoJob> jobCache = new ConcurrentHashMap<>();
     private final Map<String, AssemblyJob> assemblyJobCache = new ConcurrentHashMap<>();
+    private final Map<String, IncrementalAssembly> incrementalAssemblies = new ConcurrentHashMap<>();
 
     /**
      * Start video generation for all scenes in a script
      */
     public VideoJob generateVideos(String scriptId, List<Integer> sceneNumbers, String quality) {
+        return generateVideos(scriptId, sceneNumbers, quality, null);
+    }
+
+    /**
+     * Start video generation with a custom number of scenes rendered at once
+     * @param concurrency Scenes generated in parallel, null for the configured default
+     */
+    public VideoJob generateVideos(String scriptId, List<Integer> sceneNumbers, String quality, Integer concurrency) {
+        return generateVideos(scriptId, sceneNumbers, quality, concurrency, null);
+    }
+
+    /**
+     * Start video generation, optionally assembling the final video as scenes complete
+     * @param assembleIncrementally Append each finished scene to a running assembly, null for the configured default
+     */
+    public VideoJob generateVideos(String scriptId, List<Integer> sceneNumbers, String quality, Integer concurrency,
+                                   Boolean assembleIncrementally) {
         Script script = scriptService.getScript(scriptId);
         if (script == null) {
             throw new RuntimeException("Script not found: " + scriptId);
         }
 
+        // A scene listed twice is generated once
+        if (sceneNumbers != null) {
+            sceneNumbers = new ArrayList<>(new LinkedHashSet<>(sceneNumbers));
+        }
+        int numScenes = sceneNumbers != null ? sceneNumbers.size() : script.getNumScenes();
+        int workers = Math.max(1, Math.min(concurrency != null && concurrency > 0 ? concurrency : sceneConcurrency, numScenes));
+
         // Create video job
         VideoJob job = VideoJob.builder()
                 .jobId(VideoJob.generateJobId())
@@ -59,115 +123,374 @@ public class VideoService {
                 .status("processing")
                 .progress(0)
                 .completedScenes(0)
-                .totalScenes(sceneNumbers != null ? sceneNumbers.size() : script.getNumScenes())
-                .estimatedTime(calculateEstimatedTime(sceneNumbers != null ? sceneNumbers.size() : script.getNumScenes()))
+                .totalScenes(numScenes)
+                .estimatedTime(calculateEstimatedTime(numScenes, workers * Math.max(1, pipelineDepth)))
                 .startTime(System.currentTimeMillis())
                 .build();
 
         jobCache.put(job.getJobId(), job);
 
-        // Start generation in background
-        CompletableFuture.runAsync(() -> processVideoGeneration(job, script));
+        if (assembleIncrementally != null ? assembleIncrementally : incrementalAssembly) {
+            startIncrementalAssembly(job, script);
+        }
+
+        // Start one worker per concurrent scene, each with its own browser
+        Queue<Integer> pendingScenes = new ConcurrentLinkedQueue<>(job.getSceneNumbers());
+        List<CompletableFuture<Void>> workerFutures = new ArrayList<>();
+        for (int i = 0; i < workers; i++) {
+            try {
+                workerFutures.add(CompletableFuture.runAsync(
+                        () -> processVideoGeneration(job, script, pendingScenes), generationExecutor));
+            } catch (RejectedExecutionException e) {
+                log.warn("Generation pool saturated, job {} runs with {} of {} workers",
+                        job.getJobId(), workerFutures.size(), workers);
+                break;
+            }
+        }
+
+        if (workerFutures.isEmpty()) {
+            job.setStatus("failed");
+            job.setErrorMessage("Generation queue is full, try again later");
+            stopIncrementalAssembly(job);
+            throw new RuntimeException("Generation queue is full");
+        }
+
+        log.info("Started job {} with {} scene workers", job.getJobId(), workerFutures.size());
+        CompletableFuture.allOf(workerFutures.toArray(new CompletableFuture[0]))
+                .whenComplete((ignored, error) -> completeVideoGeneration(job, script, pendingScenes, error));
 
         return job;
     }
 
     /**
-     * Process video generation for all scenes
+     * Scene worker: leases a logged-in browser and generates scenes from the shared queue until it is empty
      */
-    private void processVideoGeneration(VideoJob job, Script script) {
+    private void processVideoGeneration(VideoJob job, Script script, Queue<Integer> pendingScenes) {
+        FlowSession session = null;
         try {
-            log.info("Starting video generation for job: {}", job.getJobId());
+            log.info("Starting scene worker for job: {}", job.getJobId());
 
-            // Initialize browser
-            flowAutomation.initializeBrowser();
+            // Lease an authenticated browser from the pool
+            session = flowSessionPool.lease();
 
-            if (!flowAutomation.loadCookiesAndNavigate()) {
-                job.setStatus("failed");
-                job.setErrorMessage("Failed to authenticate with Flow");
-                return;
+            if (pipelineDepth > 1) {
+                runPipeline(session, job, script, pendingScenes);
+            } else {
+                Integer sceneNumber;
+                while ((sceneNumber = pendingScenes.poll()) != null) {
+                    Scene scene = script.getScenes().get(sceneNumber - 1);
+                    try {
+                        generateScene(session, job, script, sceneNumber);
+                    } catch (RuntimeException e) {
+                        sceneError(job, script, scene, e);
+                    }
+                }
             }
 
-            // Generate videos for each scene
-            for (Integer sceneNumber : job.getSceneNumbers()) {
-                Scene scene = script.getScenes().get(sceneNumber - 1);
-                scene.setStatus("generating");
-                job.setCurrentScene(scene);
+        } catch (Exception e) {
+            log.error("Scene worker failed for job {}: {}", job.getJobId(), e.getMessage());
+        } finally {
+            flowSessionPool.release(session);
+        }
+    }
 
-                log.info("Generating video for scene {}", sceneNumber);
+    /**
+     * Keep up to pipelineDepth scenes generating in separate tabs of one browser
+     * and collect them in the order they finish
+     */
+    private void runPipeline(FlowSession session, VideoJob job, Script script, Queue<Integer> pendingScenes) {
+        List<FlowAutomation.PendingGeneration> inFlight = new ArrayList<>();
+        try {
+            while (true) {
+                Integer sceneNumber;
+                while (inFlight.size() < pipelineDepth && (sceneNumber = pendingScenes.poll()) != null) {
+                    Scene scene = script.getScenes().get(sceneNumber - 1);
+                    synchronized (script) {
+                        scene.setStatus("generating");
+                    }
+                    job.setCurrentScene(scene);
 
-                // Generate video
-                boolean success = flowAutomation.generateVideo(scene);
+                    FlowAutomation.PendingGeneration pending;
+                    try {
+                        pending = flowAutomation.submitInNewTab(session, scene);
+                    } catch (RuntimeException e) {
+                        sceneError(job, script, scene, e);
+                        continue;
+                    }
+                    if (pending != null) {
+                        inFlight.add(pending);
+                    } else {
+                        failScene(job, script, scene);
+                    }
+                }
 
-                if (!success) {
-                    scene.setStatus("failed");
-                    log.error("Failed to generate video for scene {}", sceneNumber);
+                if (inFlight.isEmpty()) {
+                    return;
+                }
+
+                FlowAutomation.PendingGeneration finished = flowAutomation.awaitNextCompleted(session, inFlight);
+                inFlight.remove(finished);
+
+                if (!finished.isCompleted()) {
+                    flowAutomation.closeTab(session, finished.getWindowHandle());
+                    failScene(job, script, finished.getScene());
                     continue;
                 }
 
-                // Download video
-                String videoDir = String.format("%s/%s", videosDir, script.getScriptId());
-                fileUtils.createDirectory(videoDir);
+                job.setCurrentScene(finished.getScene());
+                try {
+                    finishScene(job, script, finished.getScene(),
+                            videoPath -> flowAutomation.downloadPipelinedVideo(session, finished, videoPath));
+                } catch (RuntimeException e) {
+                    sceneError(job, script, finished.getScene(), e);
+                }
+            }
+        } finally {
+            // Scenes still in flight when the worker stops cannot be collected by anyone else
+            for (FlowAutomation.PendingGeneration pending : inFlight) {
+                failScene(job, script, pending.getScene());
+            }
+        }
+    }
 
-                String videoFileName = fileUtils.getSceneFilename(sceneNumber);
-                String videoPath = String.format("%s/%s", videoDir, videoFileName);
+    /**
+     * Generate, download and post-process one scene
+     */
+    private void generateScene(FlowSession session, VideoJob job, Script script, int sceneNumber) {
+        Scene scene = script.getScenes().get(sceneNumber - 1);
+        synchronized (script) {
+            scene.setStatus("generating");
+        }
+        job.setCurrentScene(scene);
 
-                String videoUrl = flowAutomation.downloadVideo(scene, videoPath);
+        log.info("Generating video for scene {}", sceneNumber);
 
-                if (videoUrl != null) {
-                    scene.setStatus("completed");
-                    scene.setProgress(100);
-                    scene.setVideoFilePath(videoPath);
-                    scene.setVideoUrl(String.format("http://localhost:%d/api/video/file/%s/%s",
-                            serverPort, script.getScriptId(), videoFileName));
+        // Generate video
+        boolean success = flowAutomation.generateVideo(session, scene);
 
-                    // Extract thumbnail
-                    try {
-                        String thumbnailFileName = fileUtils.getThumbnailFilename(sceneNumber);
-                        String thumbnailPath = String.format("%s/%s", videoDir, thumbnailFileName);
-                        ffmpegProcessor.extractThumbnail(videoPath, thumbnailPath, 2.0);
-
-                        scene.setThumbnailUrl(String.format("http://localhost:%d/api/video/thumbnail/%s/%s",
-                                serverPort, script.getScriptId(), thumbnailFileName));
-                    } catch (Exception e) {
-                        log.warn("Failed to extract thumbnail for scene {}", sceneNumber);
-                    }
+        if (!success) {
+            failScene(job, script, scene);
+            return;
+        }
 
-                    // Get video info
-                    try {
-                        scene.setFileSize(ffmpegProcessor.getVideoFileSize(videoPath));
-                        scene.setResolution(ffmpegProcessor.getVideoResolution(videoPath));
-                    } catch (Exception e) {
-                        log.warn("Failed to get video info for scene {}", sceneNumber);
-                    }
+        finishScene(job, script, scene, videoPath -> flowAutomation.downloadVideo(session, scene, videoPath));
+    }
 
-                    job.setCompletedScenes(job.getCompletedScenes() + 1);
-                    job.setProgress((job.getCompletedScenes() * 100) / job.getTotalScenes());
+    /**
+     * Download a generated scene and extract its thumbnail and metadata
+     * @param download Saves the clip to the given path and returns its source URL, or null on failure
+     */
+    private void finishScene(VideoJob job, Script script, Scene scene, UnaryOperator<String> download) {
+        int sceneNumber = scene.getSceneNumber();
+
+        // Download video
+        String videoDir = String.format("%s/%s", videosDir, script.getScriptId());
+        fileUtils.createDirectory(videoDir);
+
+        String videoFileName = fileUtils.getSceneFilename(sceneNumber);
+        String videoPath = String.format("%s/%s", videoDir, videoFileName);
 
-                    log.info("Scene {} completed ({}/{})", sceneNumber,
-                            job.getCompletedScenes(), job.getTotalScenes());
+        String videoUrl = download.apply(videoPath);
+        if (videoUrl != null && !isDownloaded(videoPath)) {
+            log.error("Download of scene {} reported success but left no file at {}", sceneNumber, videoPath);
+            videoUrl = null;
+        }
+
+        if (videoUrl != null) {
+            // Post-processing runs unlocked; its results are applied to the scene in one step below
+            String thumbnailUrl = null;
+            SpriteSheet sprite = null;
+            FFmpegProcessor.VideoMetadata metadata = null;
+            String playlistUrl = null;
+
+            // Extract thumbnail, with a filmstrip sprite from the same pass when enabled
+            try {
+                String thumbnailFileName = fileUtils.getThumbnailFilename(sceneNumber);
+                String thumbnailPath = String.format("%s/%s", videoDir, thumbnailFileName);
+                if (spriteFrames > 0) {
+                    String spriteFileName = fileUtils.getSpriteFilename(sceneNumber);
+                    sprite = ffmpegProcessor.extractPreviews(videoPath, thumbnailPath,
+                            String.format("%s/%s", videoDir, spriteFileName), 2.0, spriteFrames, spriteFrameWidth);
+                    sprite.setSpriteUrl(String.format("http://localhost:%d/api/video/thumbnail/%s/%s",
+                            serverPort, script.getScriptId(), spriteFileName));
                 } else {
-                    scene.setStatus("failed");
-                    log.error("Failed to download video for scene {}", sceneNumber);
+                    ffmpegProcessor.extractThumbnail(videoPath, thumbnailPath, 2.0);
                 }
 
-                // Update script
-                scriptService.updateScript(script);
+                thumbnailUrl = String.format("http://localhost:%d/api/video/thumbnail/%s/%s",
+                        serverPort, script.getScriptId(), thumbnailFileName);
+            } catch (Exception e) {
+                log.warn("Failed to extract thumbnail for scene {}", sceneNumber);
+            }
+
+            // Get video info
+            try {
+                metadata = ffmpegProcessor.probe(videoPath);
+            } catch (Exception e) {
+                log.warn("Failed to get video info for scene {}", sceneNumber);
+            }
+
+            if (hlsScenes) {
+                try {
+                    playlistUrl = packageHls(script.getScriptId(), videoPath);
+                } catch (Exception e) {
+                    log.warn("Failed to package scene {} as HLS: {}", sceneNumber, e.getMessage());
+                }
             }
 
+            synchronized (script) {
+                scene.setStatus("completed");
+                scene.setProgress(100);
+                scene.setVideoFilePath(videoPath);
+                scene.setVideoUrl(String.format("http://localhost:%d/api/video/file/%s/%s",
+                        serverPort, script.getScriptId(), videoFileName));
+                scene.setThumbnailUrl(thumbnailUrl);
+                scene.setSpriteSheet(sprite);
+                if (metadata != null) {
+                    scene.setFileSize(metadata.getFileSize());
+                    scene.setResolution(metadata.getResolution());
+                }
+                scene.setPlaylistUrl(playlistUrl);
+            }
+
+            recordSceneResult(job, script, true);
+
+            IncrementalAssembly assembly = incrementalAssemblies.get(job.getJobId());
+            if (assembly != null) {
+                assembly.sceneCompleted(sceneNumber, videoPath);
+            }
+        } else {
+            log.error("Failed to download video for scene {}", sceneNumber);
+            failScene(job, script, scene);
+        }
+    }
+
+    private static boolean isDownloaded(String videoPath) {
+        File file = new File(videoPath);
+        return file.isFile() && file.length() > 0;
+    }
+
+    /**
+     * Mark a scene failed and count it toward job progress
+     */
+    private void failScene(VideoJob job, Script script, Scene scene) {
+        synchronized (script) {
+            scene.setStatus("failed");
+        }
+        log.error("Scene {} failed for job {}", scene.getSceneNumber(), job.getJobId());
+        recordSceneResult(job, script, false);
+
+        IncrementalAssembly assembly = incrementalAssemblies.get(job.getJobId());
+        if (assembly != null) {
+            assembly.sceneFailed(scene.getSceneNumber());
+        }
+    }
+
+    /**
+     * Fail a scene whose generation threw, unless it already got a result, so the worker
+     * can go on with the next one
+     */
+    private void sceneError(VideoJob job, Script script, Scene scene, RuntimeException e) {
+        log.error("Scene {} of job {} threw: {}", scene.getSceneNumber(), job.getJobId(), e.getMessage(), e);
+        String status;
+        synchronized (script) {
+            status = scene.getStatus();
+        }
+        if (!"completed".equals(status) && !"failed".equals(status)) {
+            failScene(job, script, scene);
+        }
+    }
+
+    /**
+     * Write a finished scene back and recompute job progress from the scenes that are done
+     */
+    private void recordSceneResult(VideoJob job, Script script, boolean success) {
+        // Scene statuses are written under the script lock, so they are read under it too;
+        // the job lock is always taken inside the script lock, never the other way round
+        synchronized (script) {
+            int finished = job.getSceneNumbers().stream()
+                    .map(n -> script.getScenes().get(n - 1).getStatus())
+                    .mapToInt(status -> "completed".equals(status) || "failed".equals(status) ? 1 : 0)
+                    .sum();
+            synchronized (job) {
+                if (success) {
+                    job.setCompletedScenes(job.getCompletedScenes() + 1);
+                }
+                job.setProgress((finished * 100) / job.getTotalScenes());
+
+                log.info("Scene finished for job {} ({} completed, {}/{} done)", job.getJobId(),
+                        job.getCompletedScenes(), finished, job.getTotalScenes());
+            }
+
+            // Update script
+            scriptService.updateScript(script);
+        }
+    }
+
+    /**
+     * Called once every scene worker of a job has stopped
+     */
+    private void completeVideoGeneration(VideoJob job, Script script, Queue<Integer> pendingScenes, Throwable error) {
+        if (error != null) {
+            log.error("Video generation failed for job {}: {}", job.getJobId(), error.getMessage());
+            job.setStatus("failed");
+            job.setErrorMessage(error.getMessage());
+        } else if (!pendingScenes.isEmpty()) {
+            // Every worker gave up before the queue drained: no browser could be leased or log in
+            log.error("Video generation for job {} stopped with {} scenes left", job.getJobId(), pendingScenes.size());
+            job.setStatus("failed");
+            job.setErrorMessage("No authenticated Flow browser session available");
+        } else {
             // Complete job
             job.setStatus("completed");
             job.setProgress(100);
-            job.setEndTime(System.currentTimeMillis());
-
             log.info("Video generation completed for job: {}", job.getJobId());
+        }
+        job.setEndTime(System.currentTimeMillis());
 
-        } catch (Exception e) {
-            log.error("Video generation failed for job {}: {}", job.getJobId(), e.getMessage());
-            job.setStatus("failed");
-            job.setErrorMessage(e.getMessage());
-        } finally {
-            flowAutomation.closeBrowser();
+        // Scene results are written behind; make the finished job durable now
+        scriptService.flushScript(script.getScriptId());
+
+        stopIncrementalAssembly(job);
+    }
+
+    /**
+     * Create the assembly job that finished scenes of a generation job are appended to
+     */
+    private void startIncrementalAssembly(VideoJob job, Script script) {
+        String videoDir = String.format("%s/%s", videosDir, script.getScriptId());
+        String outputFileName = String.format("final_video_%s.mp4", System.currentTimeMillis());
+
+        AssemblyJob assemblyJob = AssemblyJob.builder()
+                .assemblyJobId(AssemblyJob.generateAssemblyJobId())
+                .scriptId(script.getScriptId())
+                .sceneNumbers(job.getSceneNumbers())
+                .addTransitions(false)
+                .outputFormat("mp4")
+                .status("processing")
+                .progress(0)
+                .estimatedTime(job.getEstimatedTime())
+                .build();
+
+        try {
+            IncrementalAssembly assembly = new IncrementalAssembly(assemblyJob, ffmpegProcessor, videoDir, outputFileName,
+                    String.format("http://localhost:%d/api/video/file/%s/%s", serverPort, script.getScriptId(), outputFileName));
+            assemblyJobCache.put(assemblyJob.getAssemblyJobId(), assemblyJob);
+            incrementalAssemblies.put(job.getJobId(), assembly);
+            job.setAssemblyJobId(assemblyJob.getAssemblyJobId());
+            log.info("Job {} assembles incrementally into {}", job.getJobId(), assemblyJob.getAssemblyJobId());
+        } catch (IOException e) {
+            log.warn("Incremental assembly unavailable for job {}: {}", job.getJobId(), e.getMessage());
+        }
+    }
+
+    /**
+     * Let a job's running assembly finish with the scenes it has, once no more will arrive
+     */
+    private void stopIncrementalAssembly(VideoJob job) {
+        IncrementalAssembly assembly = incrementalAssemblies.remove(job.getJobId());
+        if (assembly != null) {
+            assembly.generationStopped();
         }
     }
 
@@ -206,7 +529,13 @@ public class VideoService {
         assemblyJobCache.put(job.getAssemblyJobId(), job);
 
         // Start assembly in background
-        CompletableFuture.runAsync(() -> processVideoAssembly(job, script));
+        try {
+            CompletableFuture.runAsync(() -> processVideoAssembly(job, script), assemblyExecutor);
+        } catch (RejectedExecutionException e) {
+            job.setStatus("failed");
+            job.setErrorMessage("Assembly queue is full, try again later");
+            throw new RuntimeException("Assembly queue is full", e);
+        }
 
         return job;
     }
@@ -243,21 +572,28 @@ public class VideoService {
             String outputFileName = String.format("final_video_%s.mp4", System.currentTimeMillis());
             String outputPath = String.format("%s/%s", videoDir, outputFileName);
 
-            job.setProgress(50);
+            FFmpegProgress progress = new FFmpegProgress(update -> reportAssemblyProgress(job, update));
 
             String assembledVideo = ffmpegProcessor.assembleVideos(
-                    videoFiles, outputPath, job.isAddTransitions(), job.getTransitionDuration()
+                    videoFiles, outputPath, job.isAddTransitions(), job.getTransitionDuration(), progress
             );
 
             // Get video info
             job.setOutputFilePath(assembledVideo);
             job.setOutputUrl(String.format("http://localhost:%d/api/video/file/%s/%s",
                     serverPort, script.getScriptId(), outputFileName));
-            job.setFileSize(ffmpegProcessor.getVideoFileSize(assembledVideo));
-            job.setTotalDuration((int) ffmpegProcessor.getVideoDuration(assembledVideo));
+            FFmpegProcessor.VideoMetadata metadata = ffmpegProcessor.probe(assembledVideo);
+            job.setFileSize(metadata.getFileSize());
+            job.setTotalDuration((int) metadata.getDuration());
+
+            if ("hls".equalsIgnoreCase(job.getOutputFormat())) {
+                job.setPlaylistUrl(packageHls(script.getScriptId(), assembledVideo));
+            }
 
             job.setStatus("completed");
             job.setProgress(100);
+            job.setSpeed(0);
+            job.setEstimatedTime(0);
 
             log.info("Video assembly completed: {}", assembledVideo);
 
@@ -268,6 +604,23 @@ public class VideoService {
         }
     }
 
+    /**
+     * Copy ffmpeg progress onto an assembly job
+     * Progress stays below 100 until the output is verified and never moves back when a fallback adds work
+     */
+    private void reportAssemblyProgress(AssemblyJob job, FFmpegProgress progress) {
+        synchronized (job) {
+            job.setProgress(Math.max(job.getProgress(), Math.min(99, (int) (progress.getFraction() * 100))));
+            job.setSpeed(progress.getSpeed());
+            job.setFramesProcessed(progress.getFrames());
+            job.setProcessedSeconds(progress.getProcessedSeconds());
+            long remaining = progress.getRemainingSeconds();
+            if (remaining >= 0) {
+                job.setEstimatedTime(remaining);
+            }
+        }
+    }
+
     /**
      * Get assembly job status
      */
@@ -289,8 +642,44 @@ public class VideoService {
     /**
      * Calculate estimated time (seconds)
      */
-    private long calculateEstimatedTime(int numScenes) {
-        return numScenes * 300L; // 5 minutes per scene
+    private long calculateEstimatedTime(int numScenes, int concurrency) {
+        int rounds = (numScenes + concurrency - 1) / concurrency;
+        return rounds * 300L; // 5 minutes per scene, concurrent scenes overlap
+    }
+
+    /**
+     * Package a video of a script as HLS, named after the video file plus a version token
+     * Segment file names repeat every time, so each packaging gets a directory of its own and
+     * the URLs of its segments never point at different content; older versions are removed
+     * @return URL of the playlist
+     */
+    private String packageHls(String scriptId, String videoPath) throws IOException {
+        String name = fileUtils.getFileNameWithoutExtension(videoPath);
+        String version = name + "-" + Long.toString(System.currentTimeMillis(), 36);
+        ffmpegProcessor.packageHls(videoPath, getHlsDirectory(scriptId, version));
+        removeOlderHlsVersions(scriptId, name, version);
+        return String.format("http://localhost:%d/api/video/hls/%s/%s/%s",
+                serverPort, scriptId, version, FFmpegProcessor.HLS_PLAYLIST);
+    }
+
+    private void removeOlderHlsVersions(String scriptId, String name, String current) {
+        File[] versions = new File(String.format("%s/%s/hls", videosDir, scriptId))
+                .listFiles(file -> file.isDirectory() && file.getName().matches(Pattern.quote(name) + "-[0-9a-z]+"));
+        if (versions == null) {
+            return;
+        }
+        for (File version : versions) {
+            if (!version.getName().equals(current) && !fileUtils.deleteDirectory(version.getPath())) {
+                log.warn("Failed to remove old HLS version {}", version);
+            }
+        }
+    }
+
+    /**
+     * Get the directory holding the HLS playlist and segments of a video
+     */
+    public String getHlsDirectory(String scriptId, String name) {
+        return String.format("%s/%s/hls/%s", videosDir, scriptId, name);
     }
 
     /**
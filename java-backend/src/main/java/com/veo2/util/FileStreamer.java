@@ -0,0 +1,257 @@
+package com.veo2.util;
+
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpRange;
+import org.springframework.stereotype.Component;
+import org.springframework.web.context.request.ServletWebRequest;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * Serves files with byte ranges (206, multipart/byteranges), conditional GETs (304) and
+ * validators. Whole files and single ranges go out by Tomcat's sendfile when the connector
+ * offers it, without passing through the JVM; otherwise, and for multipart responses, by
+ * FileChannel.transferTo into the response stream, which copies through a small heap buffer
+ */
+@Component
+public class FileStreamer {
+
+    private static final Logger log = LoggerFactory.getLogger(FileStreamer.class);
+
+    // Request attributes of Tomcat's sendfile support (org.apache.coyote.Constants)
+    private static final String SENDFILE_SUPPORTED = "org.apache.tomcat.sendfile.support";
+    private static final String SENDFILE_FILENAME = "org.apache.tomcat.sendfile.filename";
+    private static final String SENDFILE_START = "org.apache.tomcat.sendfile.start";
+    private static final String SENDFILE_END = "org.apache.tomcat.sendfile.end";
+
+    @Value("${veo2.http.file-max-age:0}")
+    private long maxAge;
+
+    /**
+     * Write a file as the response to a GET or HEAD request
+     * @param contentDisposition Content-Disposition header, or null for none
+     * @param cacheControl Cache-Control header, or null to revalidate after the configured max age
+     */
+    public void serve(HttpServletRequest request, HttpServletResponse response, File file,
+                      String contentType, String contentDisposition, String cacheControl) throws IOException {
+        if (!file.isFile()) {
+            response.sendError(HttpServletResponse.SC_NOT_FOUND);
+            return;
+        }
+
+        long length = file.length();
+        long lastModified = file.lastModified();
+        String etag = "\"" + Long.toHexString(length) + "-" + Long.toHexString(lastModified) + "\"";
+
+        response.setHeader(HttpHeaders.ACCEPT_RANGES, "bytes");
+        response.setHeader(HttpHeaders.CACHE_CONTROL, cacheControl != null ? cacheControl
+                : "public, max-age=" + maxAge + ", must-revalidate");
+        if (contentDisposition != null) {
+            response.setHeader(HttpHeaders.CONTENT_DISPOSITION, contentDisposition);
+        }
+
+        // Sets ETag and Last-Modified, and answers 304 (or 412) when the client's copy is current
+        if (new ServletWebRequest(request, response).checkNotModified(etag, lastModified)) {
+            return;
+        }
+
+        List<long[]> ranges;
+        try {
+            ranges = requestedRanges(request, etag, lastModified, length);
+        } catch (IllegalArgumentException e) {
+            response.setHeader(HttpHeaders.CONTENT_RANGE, "bytes */" + length);
+            response.sendError(HttpServletResponse.SC_REQUESTED_RANGE_NOT_SATISFIABLE);
+            return;
+        }
+        boolean head = "HEAD".equalsIgnoreCase(request.getMethod());
+
+        if (ranges.isEmpty()) {
+            response.setContentType(contentType);
+            response.setContentLengthLong(length);
+            if (!head) {
+                send(request, response, file, 0, length);
+            }
+        } else if (ranges.size() == 1) {
+            long start = ranges.get(0)[0];
+            long end = ranges.get(0)[1];
+            response.setStatus(HttpServletResponse.SC_PARTIAL_CONTENT);
+            response.setContentType(contentType);
+            response.setHeader(HttpHeaders.CONTENT_RANGE, "bytes " + start + "-" + end + "/" + length);
+            response.setContentLengthLong(end - start + 1);
+            if (!head) {
+                send(request, response, file, start, end + 1);
+            }
+        } else {
+            sendMultipart(response, file, contentType, ranges, length, head);
+        }
+    }
+
+    /**
+     * Byte ranges to send as inclusive [start, end] pairs, empty for the whole file
+     * A Range is ignored when If-Range names another version of the file
+     * @throws IllegalArgumentException When no requested range can be satisfied
+     */
+    private List<long[]> requestedRanges(HttpServletRequest request, String etag, long lastModified, long length) {
+        String rangeHeader = request.getHeader(HttpHeaders.RANGE);
+        if (rangeHeader == null || !rangeHeader.startsWith("bytes=")) {
+            return List.of();
+        }
+
+        String ifRange = request.getHeader(HttpHeaders.IF_RANGE);
+        if (ifRange != null && !ifRange.equals(etag) && !sameSecond(request, lastModified)) {
+            return List.of();
+        }
+
+        return parseRanges(rangeHeader, length);
+    }
+
+    /**
+     * Satisfiable ranges of a Range header as inclusive [start, end] pairs, sorted with
+     * overlapping and adjacent ranges merged; empty for the whole file, which is also what
+     * ranges adding up to the file's length or more get
+     * @throws IllegalArgumentException When no requested range can be satisfied
+     */
+    static List<long[]> parseRanges(String rangeHeader, long length) {
+        List<HttpRange> parsed;
+        try {
+            parsed = HttpRange.parseRanges(rangeHeader);
+        } catch (IllegalArgumentException e) {
+            // A malformed Range header is ignored, not rejected
+            return List.of();
+        }
+
+        List<long[]> ranges = new ArrayList<>();
+        for (HttpRange range : parsed) {
+            try {
+                long start = range.getRangeStart(length);
+                long end = Math.min(range.getRangeEnd(length), length - 1);
+                if (start < length && start <= end) {
+                    ranges.add(new long[]{start, end});
+                }
+            } catch (IllegalArgumentException e) {
+                // Unsatisfiable on its own; the others may still be served
+            }
+        }
+        if (ranges.isEmpty()) {
+            throw new IllegalArgumentException("No satisfiable range in " + rangeHeader);
+        }
+
+        // Many overlapping ranges would otherwise send the same bytes over and over
+        long requested = 0;
+        for (long[] range : ranges) {
+            requested += range[1] - range[0] + 1;
+        }
+        if (requested >= length) {
+            return List.of();
+        }
+
+        ranges.sort(Comparator.comparingLong(range -> range[0]));
+        List<long[]> merged = new ArrayList<>();
+        for (long[] range : ranges) {
+            long[] last = merged.isEmpty() ? null : merged.get(merged.size() - 1);
+            if (last != null && range[0] <= last[1] + 1) {
+                last[1] = Math.max(last[1], range[1]);
+            } else {
+                merged.add(range);
+            }
+        }
+        return merged;
+    }
+
+    /**
+     * Whether If-Range holds the file's Last-Modified date rather than another validator
+     */
+    private boolean sameSecond(HttpServletRequest request, long lastModified) {
+        try {
+            long date = request.getDateHeader(HttpHeaders.IF_RANGE);
+            return date != -1 && date / 1000 == lastModified / 1000;
+        } catch (IllegalArgumentException e) {
+            // An entity tag for another version
+            return false;
+        }
+    }
+
+    /**
+     * Send bytes [start, end) of a file as the whole body
+     */
+    private void send(HttpServletRequest request, HttpServletResponse response, File file,
+                      long start, long end) throws IOException {
+        if (Boolean.TRUE.equals(request.getAttribute(SENDFILE_SUPPORTED))) {
+            // Tomcat writes the file to the socket itself once the handler returns
+            request.setAttribute(SENDFILE_FILENAME, file.getCanonicalPath());
+            request.setAttribute(SENDFILE_START, start);
+            request.setAttribute(SENDFILE_END, end);
+            return;
+        }
+
+        try (FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.READ)) {
+            transfer(channel, start, end, Channels.newChannel(response.getOutputStream()));
+        } catch (IOException e) {
+            // Players routinely drop connections while seeking
+            log.debug("Transfer of {} aborted: {}", file.getName(), e.getMessage());
+        }
+    }
+
+    private void sendMultipart(HttpServletResponse response, File file, String contentType,
+                               List<long[]> ranges, long length, boolean head) throws IOException {
+        String boundary = UUID.randomUUID().toString();
+        List<byte[]> partHeaders = new ArrayList<>();
+        long contentLength = 0;
+        for (long[] range : ranges) {
+            byte[] header = ("\r\n--" + boundary + "\r\n"
+                    + HttpHeaders.CONTENT_TYPE + ": " + contentType + "\r\n"
+                    + HttpHeaders.CONTENT_RANGE + ": bytes " + range[0] + "-" + range[1] + "/" + length + "\r\n\r\n")
+                    .getBytes(StandardCharsets.US_ASCII);
+            partHeaders.add(header);
+            contentLength += header.length + range[1] - range[0] + 1;
+        }
+        byte[] closing = ("\r\n--" + boundary + "--\r\n").getBytes(StandardCharsets.US_ASCII);
+        contentLength += closing.length;
+
+        response.setStatus(HttpServletResponse.SC_PARTIAL_CONTENT);
+        response.setContentType("multipart/byteranges; boundary=" + boundary);
+        response.setContentLengthLong(contentLength);
+        if (head) {
+            return;
+        }
+
+        try (FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.READ)) {
+            OutputStream out = response.getOutputStream();
+            WritableByteChannel target = Channels.newChannel(out);
+            for (int i = 0; i < ranges.size(); i++) {
+                out.write(partHeaders.get(i));
+                transfer(channel, ranges.get(i)[0], ranges.get(i)[1] + 1, target);
+            }
+            out.write(closing);
+        } catch (IOException e) {
+            log.debug("Multipart transfer of {} aborted: {}", file.getName(), e.getMessage());
+        }
+    }
+
+    private void transfer(FileChannel channel, long start, long end, WritableByteChannel target) throws IOException {
+        long position = start;
+        while (position < end) {
+            long sent = channel.transferTo(position, end - position, target);
+            if (sent <= 0) {
+                throw new IOException("File shrank while it was being sent");
+            }
+            position += sent;
+        }
+    }
+}
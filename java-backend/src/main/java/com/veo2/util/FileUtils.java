@@ -67,6 +67,31 @@ public class FileUtils {
         return false;
     }
 
+    /**
+     * Delete a directory and everything in it
+     */
+    public boolean deleteDirectory(String path) {
+        File dir = new File(path);
+        if (!dir.exists()) {
+            return false;
+        }
+        File[] children = dir.listFiles();
+        if (children != null) {
+            for (File child : children) {
+                if (child.isDirectory()) {
+                    deleteDirectory(child.getPath());
+                } else {
+                    child.delete();
+                }
+            }
+        }
+        boolean deleted = dir.delete();
+        if (deleted) {
+            log.info("Deleted directory: {}", path);
+        }
+        return deleted;
+    }
+
     /**
      * Copy file
      */
@@ -110,6 +135,15 @@ public class FileUtils {
         return "";
     }
 
+    /**
+     * Get file name without directory and extension
+     */
+    public String getFileNameWithoutExtension(String path) {
+        String filename = new File(path).getName();
+        int lastDotIndex = filename.lastIndexOf('.');
+        return lastDotIndex > 0 ? filename.substring(0, lastDotIndex) : filename;
+    }
+
     /**
      * Build file path with scriptId
      */
@@ -131,6 +165,13 @@ public class FileUtils {
         return String.format("scene_%03d_thumb.jpg", sceneNumber);
     }
 
+    /**
+     * Get filmstrip sprite filename for scene
+     */
+    public String getSpriteFilename(int sceneNumber) {
+        return String.format("scene_%03d_sprite.jpg", sceneNumber);
+    }
+
     /**
      * Clean up old files in directory
      */
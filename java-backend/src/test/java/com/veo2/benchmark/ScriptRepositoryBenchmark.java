@@ -0,0 +1,116 @@
+package com.veo2.benchmark;
+
+import ch.qos.logback.classic.Level;
+import com.veo2.model.Scene;
+import com.veo2.model.Script;
+import com.veo2.repository.JsonScriptRepository;
+import com.veo2.repository.MVStoreScriptRepository;
+import com.veo2.repository.ScriptRepository;
+import com.veo2.util.MockDataGenerator;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+/**
+ * Compares create, read, update and list throughput of the JSON-file and MVStore script backends
+ *
+ * Usage: mvn test-compile exec:java -Dexec.classpathScope=test
+ *     -Dexec.mainClass=com.veo2.benchmark.ScriptRepositoryBenchmark -Dexec.args="[scripts] [scenes]"
+ * Defaults are 2000 scripts of 8 scenes each. Kept with the tests so it stays out of the application jar
+ *
+ * The JSON backend runs with its default journal settings, fsync included. Updates change one
+ * scene per save, as generation does; reads and updates visit the scripts in random order
+ */
+public class ScriptRepositoryBenchmark {
+
+    private static final String[] BACKENDS = {"json", "mvstore"};
+
+    public static void main(String[] args) throws Exception {
+        int count = args.length > 0 ? Integer.parseInt(args[0]) : 2000;
+        int scenes = args.length > 1 ? Integer.parseInt(args[1]) : 8;
+        ((ch.qos.logback.classic.Logger) LoggerFactory.getLogger(Logger.ROOT_LOGGER_NAME)).setLevel(Level.WARN);
+
+        Path workDir = Files.createTempDirectory("veo2-script-bench-");
+        System.out.printf("Generating %d scripts of %d scenes in %s%n", count, scenes, workDir);
+        MockDataGenerator generator = new MockDataGenerator();
+        List<Script> scripts = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            scripts.add(generator.generateMockScript("benchmark " + i, scenes * 8, "16:9", "cinematic"));
+        }
+        List<Script> shuffled = new ArrayList<>(scripts);
+        Collections.shuffle(shuffled, new Random(42));
+
+        Map<String, double[]> results = new LinkedHashMap<>();
+        for (int column = 0; column < BACKENDS.length; column++) {
+            try (ScriptRepository repository = open(BACKENDS[column], workDir)) {
+                long start = System.nanoTime();
+                for (Script script : scripts) {
+                    repository.save(script);
+                }
+                results.computeIfAbsent("create", key -> new double[2])[column] = opsPerSecond(count, start);
+
+                start = System.nanoTime();
+                for (Script script : shuffled) {
+                    repository.load(script.getScriptId());
+                }
+                results.computeIfAbsent("read", key -> new double[2])[column] = opsPerSecond(count, start);
+
+                start = System.nanoTime();
+                for (int i = 0; i < shuffled.size(); i++) {
+                    Scene scene = shuffled.get(i).getScenes().get(i % scenes);
+                    scene.setStatus("completed");
+                    scene.setProgress(100);
+                    repository.save(shuffled.get(i));
+                }
+                results.computeIfAbsent("update one scene", key -> new double[2])[column] = opsPerSecond(count, start);
+
+                int listings = 20;
+                start = System.nanoTime();
+                for (int i = 0; i < listings; i++) {
+                    repository.ids();
+                }
+                results.computeIfAbsent("list ids", key -> new double[2])[column] = opsPerSecond(listings, start);
+
+                // What the catalog does at startup, counted per script
+                start = System.nanoTime();
+                for (String scriptId : repository.ids()) {
+                    repository.load(scriptId);
+                    repository.sizeOf(scriptId);
+                }
+                results.computeIfAbsent("list with contents", key -> new double[2])[column] = opsPerSecond(count, start);
+
+                // Undo the updates so the next backend starts from the same scripts
+                for (Script script : scripts) {
+                    for (Scene scene : script.getScenes()) {
+                        scene.setStatus("pending");
+                        scene.setProgress(0);
+                    }
+                }
+            }
+        }
+
+        System.out.printf("%n%-22s %14s %14s %9s%n", "ops/s", "json", "mvstore", "ratio");
+        results.forEach((task, rates) -> System.out.printf("%-22s %14.1f %14.1f %8.2fx%n",
+                task, rates[0], rates[1], rates[0] > 0 ? rates[1] / rates[0] : 0));
+        System.out.printf("%nStores kept in %s%n", workDir);
+    }
+
+    private static ScriptRepository open(String backend, Path workDir) throws Exception {
+        return "json".equals(backend)
+                ? new JsonScriptRepository(workDir.resolve("scripts").toString(), 200, true)
+                : new MVStoreScriptRepository(workDir.resolve("scripts.mv.db").toString(), 16);
+    }
+
+    private static double opsPerSecond(int operations, long startNanos) {
+        double seconds = (System.nanoTime() - startNanos) / 1e9;
+        return seconds > 0 ? operations / seconds : 0;
+    }
+}
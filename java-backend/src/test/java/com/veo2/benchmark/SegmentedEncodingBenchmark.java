@@ -0,0 +1,119 @@
+package com.veo2.benchmark;
+
+import com.veo2.VeoApplication;
+import com.veo2.integration.FFmpegProcessor;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Compares single-process and segmented ffmpeg encoding on synthetic clips
+ *
+ * Usage: mvn test-compile exec:java -Dexec.classpathScope=test
+ *     -Dexec.mainClass=com.veo2.benchmark.SegmentedEncodingBenchmark -Dexec.args="[clips] [seconds] [size] [codec]"
+ * Needs ffmpeg on the PATH; defaults are 8 clips of 8s at 1280x720 with libx264. Kept with the
+ * tests so it stays out of the application jar
+ *
+ * Half the clips are generated at a different size and frame rate, so assembly has to
+ * re-encode them; conversion re-encodes the whole joined timeline
+ */
+public class SegmentedEncodingBenchmark {
+
+    public static void main(String[] args) throws Exception {
+        int clips = args.length > 0 ? Integer.parseInt(args[0]) : 8;
+        int seconds = args.length > 1 ? Integer.parseInt(args[1]) : 8;
+        String size = args.length > 2 ? args[2] : "1280x720";
+        String codec = args.length > 3 ? args[3] : "libx264";
+
+        Path workDir = Files.createTempDirectory("veo2-encode-bench-");
+        System.out.printf("Generating %d synthetic %ds clips in %s%n", clips, seconds, workDir);
+        List<String> inputs = generateClips(workDir, clips, seconds, size, codec);
+        String timeline = workDir.resolve("timeline.mp4").toString();
+        concat(workDir, inputs, timeline);
+
+        Map<String, long[]> results = new LinkedHashMap<>();
+        for (boolean segmented : new boolean[]{false, true}) {
+            try (ConfigurableApplicationContext context = new SpringApplicationBuilder(VeoApplication.class)
+                    .web(WebApplicationType.NONE)
+                    .run("--veo2.browser.pool.min-size=0",
+                            "--veo2.ffmpeg.video-codec=" + codec,
+                            "--veo2.ffmpeg.segmented-encoding=" + segmented,
+                            "--logging.level.com.veo2=WARN",
+                            "--logging.level.net.bramp=WARN")) {
+                FFmpegProcessor processor = context.getBean(FFmpegProcessor.class);
+                int column = segmented ? 1 : 0;
+
+                long start = System.nanoTime();
+                processor.assembleVideos(inputs, workDir.resolve("assembled_" + segmented + ".mp4").toString(), false, 0);
+                results.computeIfAbsent("assemble " + clips + " clips", key -> new long[2])[column] = elapsedMillis(start);
+
+                start = System.nanoTime();
+                processor.assembleVideos(inputs, workDir.resolve("crossfade_" + segmented + ".mp4").toString(), true, 1.0);
+                results.computeIfAbsent("crossfade " + clips + " clips", key -> new long[2])[column] = elapsedMillis(start);
+
+                start = System.nanoTime();
+                processor.convertVideo(timeline, workDir.resolve("converted_" + segmented + ".mp4").toString(), codec, 23);
+                results.computeIfAbsent("convert " + clips * seconds + "s timeline", key -> new long[2])[column] = elapsedMillis(start);
+            }
+        }
+
+        System.out.printf("%n%-28s %12s %12s %8s%n", "task", "single (ms)", "segmented", "speedup");
+        results.forEach((task, millis) -> System.out.printf("%-28s %12d %12d %7.2fx%n",
+                task, millis[0], millis[1], millis[1] > 0 ? (double) millis[0] / millis[1] : 0));
+        System.out.printf("%nCPU cores: %d, outputs kept in %s%n", Runtime.getRuntime().availableProcessors(), workDir);
+    }
+
+    private static List<String> generateClips(Path workDir, int clips, int seconds, String size, String codec)
+            throws IOException, InterruptedException {
+        String[] dimensions = size.split("x");
+        String altSize = (Integer.parseInt(dimensions[0]) * 3 / 4) + "x" + (Integer.parseInt(dimensions[1]) * 3 / 4);
+
+        List<String> inputs = new ArrayList<>();
+        for (int i = 0; i < clips; i++) {
+            boolean odd = i % 2 == 1;
+            String clip = workDir.resolve(String.format("clip_%02d.mp4", i)).toString();
+            run("ffmpeg", "-y", "-v", "error",
+                    "-f", "lavfi", "-i", String.format("testsrc2=size=%s:rate=%d", odd ? altSize : size, odd ? 30 : 24),
+                    "-f", "lavfi", "-i", String.format("sine=frequency=%d:sample_rate=48000", 220 + 110 * i),
+                    "-t", String.valueOf(seconds), "-c:v", codec, "-g", "48", "-c:a", "aac", "-ac", "2",
+                    "-shortest", clip);
+            inputs.add(clip);
+        }
+        return inputs;
+    }
+
+    private static void concat(Path workDir, List<String> inputs, String output) throws IOException, InterruptedException {
+        List<String> args = new ArrayList<>(List.of("ffmpeg", "-y", "-v", "error"));
+        StringBuilder graph = new StringBuilder();
+        for (int i = 0; i < inputs.size(); i++) {
+            args.addAll(List.of("-i", inputs.get(i)));
+            graph.append(String.format("[%d:v]scale=1280:720,setsar=1,fps=24[v%d];", i, i));
+        }
+        for (int i = 0; i < inputs.size(); i++) {
+            graph.append(String.format("[v%d][%d:a]", i, i));
+        }
+        graph.append(String.format("concat=n=%d:v=1:a=1[v][a]", inputs.size()));
+        args.addAll(List.of("-filter_complex", graph.toString(), "-map", "[v]", "-map", "[a]",
+                "-c:v", "mpeg4", "-q:v", "3", "-c:a", "aac", output));
+        run(args.toArray(new String[0]));
+    }
+
+    private static void run(String... command) throws IOException, InterruptedException {
+        Process process = new ProcessBuilder(command).inheritIO().start();
+        if (process.waitFor() != 0) {
+            throw new IOException("Command failed: " + String.join(" ", command));
+        }
+    }
+
+    private static long elapsedMillis(long startNanos) {
+        return (System.nanoTime() - startNanos) / 1_000_000;
+    }
+}
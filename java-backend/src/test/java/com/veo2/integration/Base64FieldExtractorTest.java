@@ -0,0 +1,107 @@
+package com.veo2.integration;
+
+import com.google.gson.JsonObject;
+import com.google.gson.JsonParser;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.io.StringReader;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Base64;
+import java.util.Random;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class Base64FieldExtractorTest {
+
+    @TempDir
+    Path dir;
+
+    @Test
+    void fieldIsDecodedToFileAndBlankedForTheParser() throws Exception {
+        byte[] video = randomBytes(200_000);
+        String json = "{\"name\":\"op\",\"video\":{\"bytesBase64Encoded\":\""
+                + Base64.getEncoder().encodeToString(video) + "\",\"mimeType\":\"video/mp4\"}}";
+        Path target = dir.resolve("clip.mp4");
+
+        Base64FieldExtractor extractor = new Base64FieldExtractor(new StringReader(json), "bytesBase64Encoded", target);
+        JsonObject parsed = JsonParser.parseString(readAll(extractor)).getAsJsonObject();
+
+        assertThat(extractor.isExtracted()).isTrue();
+        assertThat(extractor.getBytesWritten()).isEqualTo(video.length);
+        assertThat(Files.readAllBytes(target)).isEqualTo(video);
+        JsonObject videoJson = parsed.getAsJsonObject("video");
+        assertThat(videoJson.get("bytesBase64Encoded").getAsString()).isEmpty();
+        assertThat(videoJson.get("mimeType").getAsString()).isEqualTo("video/mp4");
+    }
+
+    @Test
+    void escapedSlashesAndLineBreaksAreHandled() throws Exception {
+        byte[] data = randomBytes(3_000);
+        String encoded = Base64.getMimeEncoder().encodeToString(data)
+                .replace("/", "\\/")
+                .replace("\r\n", "\\r\\n");
+        Path target = dir.resolve("clip.bin");
+
+        Base64FieldExtractor extractor = new Base64FieldExtractor(
+                new StringReader("{\"data\":\"" + encoded + "\"}"), "data", target);
+        readAll(extractor);
+
+        assertThat(Files.readAllBytes(target)).isEqualTo(data);
+    }
+
+    @Test
+    void sameTextAsValueOrOtherFieldIsNotExtracted() throws Exception {
+        String json = "{\"label\":\"data\",\"database\":\"AAAA\",\"data\":null}";
+        Path target = dir.resolve("none.bin");
+
+        Base64FieldExtractor extractor = new Base64FieldExtractor(new StringReader(json), "data", target);
+        String passed = readAll(extractor);
+
+        assertThat(passed).isEqualTo(json);
+        assertThat(extractor.isExtracted()).isFalse();
+        assertThat(target).doesNotExist();
+    }
+
+    @Test
+    void onlyFirstOccurrenceIsKept() throws Exception {
+        String json = "[{\"data\":\"" + Base64.getEncoder().encodeToString(new byte[]{1, 2, 3})
+                + "\"},{\"data\":\"" + Base64.getEncoder().encodeToString(new byte[]{4, 5, 6}) + "\"}]";
+        Path target = dir.resolve("first.bin");
+
+        readAll(new Base64FieldExtractor(new StringReader(json), "data", target));
+
+        assertThat(Files.readAllBytes(target)).containsExactly(1, 2, 3);
+    }
+
+    @Test
+    void invalidBase64AndTruncatedJsonFail() {
+        assertThatThrownBy(() -> readAll(new Base64FieldExtractor(
+                new StringReader("{\"data\":\"not base64!\"}"), "data", dir.resolve("bad.bin"))))
+                .isInstanceOf(IOException.class);
+        assertThatThrownBy(() -> readAll(new Base64FieldExtractor(
+                new StringReader("{\"data\":\"AAAA"), "data", dir.resolve("cut.bin"))))
+                .isInstanceOf(IOException.class);
+    }
+
+    private static String readAll(Reader reader) throws IOException {
+        StringBuilder out = new StringBuilder();
+        char[] buffer = new char[777];
+        int n;
+        while ((n = reader.read(buffer, 0, buffer.length)) != -1) {
+            out.append(buffer, 0, n);
+        }
+        reader.close();
+        return out.toString();
+    }
+
+    private static byte[] randomBytes(int length) {
+        byte[] bytes = new byte[length];
+        new Random(7).nextBytes(bytes);
+        return bytes;
+    }
+}
@@ -0,0 +1,49 @@
+package com.veo2.integration;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class FFmpegGovernorTest {
+
+    private final FFmpegGovernor governor = new FFmpegGovernor(4, new SimpleMeterRegistry());
+
+    @Test
+    void aProcessRunningAloneGetsEveryCore() throws Exception {
+        assertThat(governor.run(FFmpegGovernor.Priority.BULK, governor::coreShare)).isEqualTo(governor.getCores());
+    }
+
+    @Test
+    void coresAreSharedBetweenTheProcessesRunning() throws Exception {
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        CompletableFuture<Void> other = CompletableFuture.runAsync(() -> {
+            try {
+                governor.run(FFmpegGovernor.Priority.BULK, () -> {
+                    started.countDown();
+                    try {
+                        release.await(5, TimeUnit.SECONDS);
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                    }
+                    return null;
+                });
+            } catch (Exception e) {
+                throw new IllegalStateException(e);
+            }
+        });
+        try {
+            assertThat(started.await(5, TimeUnit.SECONDS)).isTrue();
+            assertThat(governor.run(FFmpegGovernor.Priority.BULK, governor::coreShare))
+                    .isEqualTo(Math.max(1, governor.getCores() / 2));
+        } finally {
+            release.countDown();
+            other.get(5, TimeUnit.SECONDS);
+        }
+    }
+}
@@ -0,0 +1,159 @@
+package com.veo2.integration;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.assertj.core.api.Assertions.offset;
+import static org.junit.jupiter.api.Assumptions.assumeTrue;
+
+/**
+ * Runs the real ffmpeg binary; skipped when ffmpeg and ffprobe are not on the PATH
+ */
+class FFmpegProcessorTest {
+
+    private static final int FRAME_RATE = 24;
+
+    @TempDir
+    Path dir;
+
+    private FFmpegProcessor processor;
+    private ThreadPoolTaskExecutor encodeExecutor;
+
+    @BeforeEach
+    void setUp() {
+        assumeTrue(available("ffmpeg") && available("ffprobe"), "ffmpeg is not on the PATH");
+
+        encodeExecutor = new ThreadPoolTaskExecutor();
+        encodeExecutor.setCorePoolSize(4);
+        encodeExecutor.setMaxPoolSize(4);
+        encodeExecutor.initialize();
+
+        processor = new FFmpegProcessor();
+        ReflectionTestUtils.setField(processor, "encodeExecutor", encodeExecutor);
+        ReflectionTestUtils.setField(processor, "governor", new FFmpegGovernor(4, new SimpleMeterRegistry()));
+        ReflectionTestUtils.setField(processor, "segmentedEncoding", true);
+        ReflectionTestUtils.setField(processor, "probeCacheSize", 16);
+    }
+
+    @AfterEach
+    void tearDown() {
+        if (encodeExecutor != null) {
+            encodeExecutor.shutdown();
+        }
+    }
+
+    @Test
+    void segmentedConversionKeepsEveryFrameOnceAcrossChunkBoundaries() throws Exception {
+        // A keyframe every second, so the four chunks split away from the clip's edges
+        String input = dir.resolve("input.mp4").toString();
+        run("ffmpeg", "-y", "-v", "error",
+                "-f", "lavfi", "-i", "testsrc2=size=320x240:rate=" + FRAME_RATE,
+                "-f", "lavfi", "-i", "sine=frequency=440:sample_rate=48000",
+                "-t", "8", "-c:v", "mpeg4", "-g", String.valueOf(FRAME_RATE), "-c:a", "aac", "-shortest", input);
+        String output = dir.resolve("output.mp4").toString();
+
+        Boolean segmented = ReflectionTestUtils.invokeMethod(processor, "convertSegmented", input, output, "mpeg4", 20);
+
+        assertThat(segmented).isTrue();
+        List<Double> in = frameTimes(input);
+        List<Double> out = frameTimes(output);
+        assertThat(out).hasSameSizeAs(in);
+        // Frames stay evenly spaced, with no repeat or gap where two chunks meet
+        for (int i = 1; i < out.size(); i++) {
+            assertThat(out.get(i) - out.get(i - 1)).isCloseTo(1.0 / FRAME_RATE, offset(0.002));
+        }
+        assertThat(processor.getVideoDuration(output)).isCloseTo(processor.getVideoDuration(input), offset(0.1));
+    }
+
+    @Test
+    void failingSegmentKillsTheOtherSegmentsProcesses() throws Exception {
+        CountDownLatch longEncodeEnded = new CountDownLatch(1);
+        AtomicReference<Exception> longEncodeOutcome = new AtomicReference<>();
+        List<FFmpegProcessor.EncodeTask> tasks = List.of(
+                threads -> {
+                    try {
+                        ReflectionTestUtils.invokeMethod(processor, "runFfmpeg", List.of("-y", "-v", "error",
+                                "-re", "-f", "lavfi", "-i", "testsrc2=size=320x240:rate=24", "-t", "60",
+                                "-f", "null", "-"));
+                    } catch (Exception e) {
+                        longEncodeOutcome.set(e);
+                    } finally {
+                        longEncodeEnded.countDown();
+                    }
+                },
+                threads -> {
+                    sleep(1000);
+                    throw new IOException("segment failed");
+                });
+
+        long start = System.nanoTime();
+        assertThatThrownBy(() -> processor.runAll(tasks)).isInstanceOf(IOException.class).hasMessage("segment failed");
+
+        // The 60 second encode is killed rather than left to run to the end
+        assertThat(longEncodeEnded.await(10, TimeUnit.SECONDS)).isTrue();
+        assertThat(TimeUnit.NANOSECONDS.toSeconds(System.nanoTime() - start)).isLessThan(20);
+        assertThat(longEncodeOutcome.get()).isNotNull();
+    }
+
+    private static List<Double> frameTimes(String videoPath) throws IOException, InterruptedException {
+        Process process = new ProcessBuilder("ffprobe", "-v", "error", "-select_streams", "v:0",
+                "-show_entries", "packet=pts_time", "-of", "csv=p=0", videoPath).start();
+        List<Double> times = new ArrayList<>();
+        try (BufferedReader reader = new BufferedReader(new InputStreamReader(process.getInputStream()))) {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                if (!line.isBlank()) {
+                    times.add(Double.parseDouble(line.trim().replace(",", "")));
+                }
+            }
+        }
+        assertThat(process.waitFor()).isZero();
+        times.sort(Double::compare);
+        return times;
+    }
+
+    private static void run(String... command) throws IOException, InterruptedException {
+        Process process = new ProcessBuilder(command).inheritIO().start();
+        assertThat(process.waitFor()).isZero();
+    }
+
+    private static boolean available(String command) {
+        try {
+            Process process = new ProcessBuilder(command, "-version").redirectErrorStream(true).start();
+            process.getInputStream().transferTo(OutputStream.nullOutputStream());
+            return process.waitFor() == 0;
+        } catch (IOException e) {
+            return false;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return false;
+        }
+    }
+
+    private static void sleep(long millis) throws IOException {
+        try {
+            Thread.sleep(millis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Interrupted", e);
+        }
+    }
+}
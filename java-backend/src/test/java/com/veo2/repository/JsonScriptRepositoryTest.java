@@ -0,0 +1,145 @@
+package com.veo2.repository;
+
+import com.google.gson.Gson;
+import com.veo2.model.Scene;
+import com.veo2.model.Script;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Stream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class JsonScriptRepositoryTest {
+
+    private static final Gson gson = new Gson();
+
+    @TempDir
+    Path dir;
+
+    @Test
+    void firstSaveWritesSnapshotAndLaterSavesAppendOnlyChangedScenes() throws Exception {
+        JsonScriptRepository repository = new JsonScriptRepository(dir.toString(), 200, true);
+        Script script = script("s1", 3);
+
+        assertThat(repository.save(script)).isTrue();
+        assertThat(dir.resolve("s1.json")).exists();
+        assertThat(dir.resolve("s1.journal")).doesNotExist();
+
+        script.getScenes().get(1).setStatus("completed");
+        script.getScenes().get(1).setVideoUrl("http://localhost/v2.mp4");
+        assertThat(repository.save(script)).isTrue();
+
+        List<String> records = Files.readAllLines(dir.resolve("s1.journal"));
+        assertThat(records).hasSize(1);
+        assertThat(records.get(0)).contains("\"scene\":2").contains("completed").doesNotContain("veoPrompt");
+    }
+
+    @Test
+    void unchangedScriptIsNotWritten() throws Exception {
+        JsonScriptRepository repository = new JsonScriptRepository(dir.toString(), 200, true);
+        Script script = script("s1", 2);
+        repository.save(script);
+
+        assertThat(repository.save(script)).isFalse();
+        assertThat(dir.resolve("s1.journal")).doesNotExist();
+    }
+
+    @Test
+    void loadReplaysJournalOverSnapshot() throws Exception {
+        Script script = script("s1", 3);
+        JsonScriptRepository writer = new JsonScriptRepository(dir.toString(), 200, false);
+        writer.save(script);
+        script.setTitle("renamed");
+        script.getScenes().get(0).setStatus("failed");
+        script.getScenes().get(2).setVideoUrl(null);
+        writer.save(script);
+
+        Script loaded = new JsonScriptRepository(dir.toString(), 200, false).load("s1");
+
+        assertThat(gson.toJson(loaded)).isEqualTo(gson.toJson(script));
+    }
+
+    @Test
+    void tornJournalTailIsDroppedAndCompacted() throws Exception {
+        Script script = script("s1", 2);
+        JsonScriptRepository writer = new JsonScriptRepository(dir.toString(), 200, true);
+        writer.save(script);
+        script.getScenes().get(0).setStatus("completed");
+        writer.save(script);
+        Files.writeString(dir.resolve("s1.journal"), "{\"scene\":2,\"set\":{\"sta",
+                StandardCharsets.UTF_8, StandardOpenOption.APPEND);
+
+        JsonScriptRepository reader = new JsonScriptRepository(dir.toString(), 200, true);
+        Script loaded = reader.load("s1");
+        reader.close();
+
+        assertThat(loaded.getScenes().get(0).getStatus()).isEqualTo("completed");
+        assertThat(loaded.getScenes().get(1).getStatus()).isEqualTo("pending");
+        assertThat(dir.resolve("s1.journal")).doesNotExist();
+    }
+
+    @Test
+    void damagedRecordInsideTheJournalIsSkippedNotTreatedAsTheEnd() throws Exception {
+        Script script = script("s1", 3);
+        JsonScriptRepository writer = new JsonScriptRepository(dir.toString(), 200, true);
+        writer.save(script);
+        script.getScenes().get(0).setStatus("completed");
+        writer.save(script);
+        Files.writeString(dir.resolve("s1.journal"), "{\"scene\":2,\"set\":{\"sta\n",
+                StandardCharsets.UTF_8, StandardOpenOption.APPEND);
+        script.getScenes().get(2).setStatus("completed");
+        writer.save(script);
+
+        JsonScriptRepository reader = new JsonScriptRepository(dir.toString(), 200, true);
+        Script loaded = reader.load("s1");
+        reader.close();
+
+        assertThat(loaded.getScenes().get(0).getStatus()).isEqualTo("completed");
+        assertThat(loaded.getScenes().get(1).getStatus()).isEqualTo("pending");
+        assertThat(loaded.getScenes().get(2).getStatus()).isEqualTo("completed");
+        assertThat(dir.resolve("s1.journal")).doesNotExist();
+        assertThat(gson.toJson(new JsonScriptRepository(dir.toString(), 200, true).load("s1")))
+                .isEqualTo(gson.toJson(script));
+    }
+
+    @Test
+    void journalIsFoldedIntoSnapshotPastCompactionThreshold() throws Exception {
+        JsonScriptRepository repository = new JsonScriptRepository(dir.toString(), 2, true);
+        Script script = script("s1", 3);
+        repository.save(script);
+        for (int i = 0; i < 3; i++) {
+            script.getScenes().get(i).setStatus("completed");
+            repository.save(script);
+        }
+        // Compaction runs in the background; close waits for it
+        repository.close();
+
+        // Two records fit under the threshold, the third one gets the journal compacted
+        assertThat(dir.resolve("s1.journal")).doesNotExist();
+        assertThat(gson.toJson(new JsonScriptRepository(dir.toString(), 2, true).load("s1")))
+                .isEqualTo(gson.toJson(script));
+        try (Stream<Path> files = Files.list(dir)) {
+            assertThat(files.map(path -> path.getFileName().toString())).containsExactly("s1.json");
+        }
+    }
+
+    private static Script script(String scriptId, int sceneCount) {
+        List<Scene> scenes = new ArrayList<>();
+        for (int i = 1; i <= sceneCount; i++) {
+            scenes.add(Scene.builder()
+                    .sceneNumber(i)
+                    .veoPrompt("prompt " + i)
+                    .status("pending")
+                    .videoUrl("http://localhost/v" + i + ".mp4")
+                    .build());
+        }
+        return Script.builder().scriptId(scriptId).title("title").scenes(scenes).build();
+    }
+}
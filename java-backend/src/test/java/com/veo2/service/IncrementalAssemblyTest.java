@@ -0,0 +1,79 @@
+package com.veo2.service;
+
+import com.veo2.integration.FFmpegProcessor;
+import com.veo2.model.AssemblyJob;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Path;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.anyDouble;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.contains;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.inOrder;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class IncrementalAssemblyTest {
+
+    @TempDir
+    Path dir;
+
+    private FFmpegProcessor ffmpegProcessor;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        ffmpegProcessor = mock(FFmpegProcessor.class);
+        when(ffmpegProcessor.appendSegment(anyString(), anyString(), anyDouble()))
+                .thenAnswer(invocation -> (double) invocation.getArgument(2) + 8.0);
+        when(ffmpegProcessor.probe(anyString()))
+                .thenReturn(new FFmpegProcessor.VideoMetadata(16.0, 1280, 720, "h264", "aac", "24", 0, 2, 1000));
+    }
+
+    @Test
+    void scenesAreAppendedInTimelineOrderWhateverOrderTheyArrive() throws Exception {
+        IncrementalAssembly assembly = assembly(List.of(1, 2, 3));
+
+        assembly.sceneCompleted(3, "scene_3.mp4");
+        assembly.sceneCompleted(1, "scene_1.mp4");
+        assembly.sceneFailed(2);
+
+        assertThat(awaitDone(assembly.getJob())).isEqualTo("completed");
+        var order = inOrder(ffmpegProcessor);
+        order.verify(ffmpegProcessor).appendSegment(contains("segment_001"), anyString(), eq(0.0));
+        order.verify(ffmpegProcessor).appendSegment(contains("segment_003"), anyString(), eq(8.0));
+        order.verify(ffmpegProcessor).finishAppended(anyString(), anyString());
+    }
+
+    @Test
+    void repeatedSceneNumberDoesNotLeaveTheAssemblyWaiting() throws Exception {
+        IncrementalAssembly assembly = assembly(List.of(1, 2, 1));
+
+        assembly.sceneCompleted(1, "scene_1.mp4");
+        assembly.sceneCompleted(2, "scene_2.mp4");
+
+        assertThat(awaitDone(assembly.getJob())).isEqualTo("completed");
+        assertThat(assembly.getJob().getProgress()).isEqualTo(100);
+    }
+
+    private IncrementalAssembly assembly(List<Integer> sceneNumbers) throws Exception {
+        AssemblyJob job = AssemblyJob.builder()
+                .assemblyJobId("a1")
+                .sceneNumbers(sceneNumbers)
+                .status("processing")
+                .build();
+        return new IncrementalAssembly(job, ffmpegProcessor, dir.toString(), "final.mp4", "http://localhost/final.mp4");
+    }
+
+    private static String awaitDone(AssemblyJob job) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + 5000;
+        while ("processing".equals(job.getStatus()) && System.currentTimeMillis() < deadline) {
+            Thread.sleep(10);
+        }
+        return job.getStatus();
+    }
+}
@@ -0,0 +1,98 @@
+package com.veo2.service;
+
+import com.veo2.model.Script;
+import com.veo2.model.ScriptSummary;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class ScriptCatalogTest {
+
+    private ScriptCatalog catalog;
+
+    @BeforeEach
+    void setUp() {
+        catalog = new ScriptCatalog();
+        // Ten scripts, with creation times in pairs so paging has to break ties by id
+        for (int i = 0; i < 10; i++) {
+            catalog.update(script("s" + i, "Title " + i, i % 2 == 0 ? "completed" : "pending", 1000 + i / 2));
+        }
+    }
+
+    @Test
+    void pagesCoverEveryScriptOnceInOrder() {
+        List<String> seen = new ArrayList<>();
+        String cursor = null;
+        int pages = 0;
+        do {
+            ScriptCatalog.Page page = catalog.list("createdAt", true, null, null, cursor, 3);
+            assertThat(page.getTotal()).isEqualTo(10);
+            seen.addAll(ids(page));
+            cursor = page.getNextCursor();
+            pages++;
+        } while (cursor != null);
+
+        assertThat(pages).isEqualTo(4);
+        assertThat(seen).containsExactly("s8", "s9", "s6", "s7", "s4", "s5", "s2", "s3", "s0", "s1");
+    }
+
+    @Test
+    void insertsBeforeTheCursorDoNotShiftLaterPages() {
+        ScriptCatalog.Page first = catalog.list("createdAt", false, null, null, null, 4);
+        catalog.update(script("new", "New", "pending", 1));
+        catalog.remove("s1");
+
+        ScriptCatalog.Page second = catalog.list("createdAt", false, null, null, first.getNextCursor(), 4);
+
+        assertThat(ids(first)).containsExactly("s0", "s1", "s2", "s3");
+        assertThat(ids(second)).containsExactly("s4", "s5", "s6", "s7");
+    }
+
+    @Test
+    void filtersApplyBeforePaging() {
+        ScriptCatalog.Page page = catalog.list("title", false, "completed", "title", null, 2);
+
+        assertThat(page.getTotal()).isEqualTo(5);
+        assertThat(ids(page)).containsExactly("s0", "s2");
+        Set<String> all = new HashSet<>(ids(page));
+        all.addAll(ids(catalog.list("title", false, "completed", "title", page.getNextCursor(), 10)));
+        assertThat(all).containsExactlyInAnyOrder("s0", "s2", "s4", "s6", "s8");
+    }
+
+    @Test
+    void lastPageHasNoCursor() {
+        assertThat(catalog.list("createdAt", true, null, null, null, 10).getNextCursor()).isNull();
+    }
+
+    @Test
+    void unknownSortAndMalformedCursorAreRejected() {
+        assertThatThrownBy(() -> catalog.list("colour", true, null, null, null, 10))
+                .isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> catalog.list("createdAt", true, null, null, "bm90IGEgY3Vyc29y", 10))
+                .isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> catalog.list("createdAt", true, null, null, "%%%", 10))
+                .isInstanceOf(IllegalArgumentException.class);
+    }
+
+    private static List<String> ids(ScriptCatalog.Page page) {
+        return page.getScripts().stream().map(ScriptSummary::getScriptId).collect(Collectors.toList());
+    }
+
+    private static Script script(String scriptId, String title, String status, long createdAt) {
+        return Script.builder()
+                .scriptId(scriptId)
+                .title(title)
+                .status(status)
+                .createdAt(createdAt)
+                .scenes(new ArrayList<>())
+                .build();
+    }
+}
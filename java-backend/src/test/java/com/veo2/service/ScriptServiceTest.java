@@ -0,0 +1,117 @@
+package com.veo2.service;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.veo2.model.Scene;
+import com.veo2.model.Script;
+import com.veo2.repository.ScriptRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class ScriptServiceTest {
+
+    private ScriptRepository repository;
+    private ScriptService service;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        repository = mock(ScriptRepository.class);
+        when(repository.save(any())).thenReturn(true);
+        // Write-behind long enough that nothing is flushed during a test
+        service = new ScriptService(100, 60_000, new SimpleMeterRegistry());
+        ReflectionTestUtils.setField(service, "scriptRepository", repository);
+        ReflectionTestUtils.setField(service, "scriptCatalog", mock(ScriptCatalog.class));
+    }
+
+    @AfterEach
+    void tearDown() {
+        ReflectionTestUtils.invokeMethod(service, "shutdown");
+    }
+
+    @Test
+    void evictedScriptWithPendingUpdateIsNotReloadedFromStorage() throws Exception {
+        Script updated = script("s1", "completed");
+        when(repository.load("s1")).thenReturn(script("s1", "pending"));
+
+        service.updateScript(updated);
+        evict("s1");
+
+        assertThat(service.getScript("s1")).isSameAs(updated);
+        verify(repository, never()).load(anyString());
+    }
+
+    @Test
+    void flushWritesPendingUpdateAndLaterMissesLoadFromStorage() throws Exception {
+        Script updated = script("s1", "completed");
+        Script stored = script("s1", "completed");
+        when(repository.load("s1")).thenReturn(stored);
+
+        service.updateScript(updated);
+        service.flushScript("s1");
+        evict("s1");
+
+        verify(repository).save(updated);
+        assertThat(service.getScript("s1")).isSameAs(stored);
+    }
+
+    @Test
+    void deletedScriptIsNotBroughtBackByLateUpdatesOrWrites() throws Exception {
+        Script script = script("s1", "pending");
+        service.updateScript(script);
+
+        service.deleteScript("s1");
+        script.getScenes().get(0).setStatus("completed");
+        service.updateScript(script);
+        service.flush();
+
+        assertThat(service.getScript("s1")).isNull();
+        verify(repository).delete("s1");
+        verify(repository, never()).save(any());
+        verify(repository, never()).load(anyString());
+    }
+
+    @Test
+    void failedWriteOfADeletedScriptIsNotRetried() throws Exception {
+        Script script = script("s1", "pending");
+        when(repository.save(any())).thenAnswer(invocation -> {
+            // Deleted while its write is in flight, which then fails
+            new Thread(() -> service.deleteScript("s1")).start();
+            Thread.sleep(100);
+            throw new IOException("disk full");
+        });
+        service.updateScript(script);
+
+        service.flushScript("s1");
+        Thread.sleep(100);
+        service.flush();
+
+        verify(repository, times(1)).save(any());
+        assertThat(service.getScript("s1")).isNull();
+    }
+
+    @SuppressWarnings("unchecked")
+    private void evict(String scriptId) {
+        ((Cache<String, Script>) ReflectionTestUtils.getField(service, "scriptCache")).invalidate(scriptId);
+    }
+
+    private static Script script(String scriptId, String sceneStatus) {
+        List<Scene> scenes = new ArrayList<>();
+        scenes.add(Scene.builder().sceneNumber(1).status(sceneStatus).build());
+        return Script.builder().scriptId(scriptId).scenes(scenes).build();
+    }
+}
@@ -0,0 +1,66 @@
+package com.veo2.service;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class VeoPollingPolicyTest {
+
+    private VeoPollingPolicy policy;
+
+    @BeforeEach
+    void setUp() {
+        policy = new VeoPollingPolicy(90_000);
+        ReflectionTestUtils.setField(policy, "minInterval", 2_000L);
+        ReflectionTestUtils.setField(policy, "maxInterval", 20_000L);
+        ReflectionTestUtils.setField(policy, "jitter", 0.0);
+        ReflectionTestUtils.setField(policy, "errorBackoffBase", 2_000L);
+        ReflectionTestUtils.setField(policy, "errorBackoffMax", 60_000L);
+    }
+
+    @Test
+    void pollsSparselyEarlyAndDenselyNearExpectedCompletion() {
+        assertThat(policy.nextDelay(0, 0, Long.MAX_VALUE)).isEqualTo(20_000);
+        assertThat(policy.nextDelay(50_000, 0, Long.MAX_VALUE)).isEqualTo(10_000);
+        assertThat(policy.nextDelay(88_000, 0, Long.MAX_VALUE)).isEqualTo(2_000);
+    }
+
+    @Test
+    void overdueOperationsArePolledAtTheMinimumInterval() {
+        assertThat(policy.nextDelay(91_000, 0, Long.MAX_VALUE)).isEqualTo(2_000);
+        assertThat(policy.nextDelay(300_000, 0, Long.MAX_VALUE)).isEqualTo(2_000);
+    }
+
+    @Test
+    void errorsBackOffExponentiallyUpToTheMaximum() {
+        assertThat(policy.nextDelay(0, 1, Long.MAX_VALUE)).isEqualTo(2_000);
+        assertThat(policy.nextDelay(0, 3, Long.MAX_VALUE)).isEqualTo(8_000);
+        assertThat(policy.nextDelay(0, 10, Long.MAX_VALUE)).isEqualTo(60_000);
+        assertThat(policy.nextDelay(0, 100, Long.MAX_VALUE)).isEqualTo(60_000);
+    }
+
+    @Test
+    void neverSleepsPastTheDeadline() {
+        assertThat(policy.nextDelay(0, 0, 5_000)).isEqualTo(5_000);
+        assertThat(policy.nextDelay(0, 5, 0)).isZero();
+        assertThat(policy.nextDelay(0, 0, -100)).isZero();
+    }
+
+    @Test
+    void jitterStaysWithinItsBounds() {
+        ReflectionTestUtils.setField(policy, "jitter", 0.2);
+        for (int i = 0; i < 100; i++) {
+            assertThat(policy.nextDelay(0, 0, Long.MAX_VALUE)).isBetween(16_000L, 24_000L);
+        }
+    }
+
+    @Test
+    void expectedDurationFollowsCompletions() {
+        for (int i = 0; i < 50; i++) {
+            policy.recordCompletion(30_000);
+        }
+        assertThat(policy.getExpectedDuration()).isBetween(30_000L, 30_100L);
+    }
+}
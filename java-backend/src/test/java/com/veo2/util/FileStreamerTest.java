@@ -0,0 +1,50 @@
+package com.veo2.util;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class FileStreamerTest {
+
+    private static final long LENGTH = 1000;
+
+    @Test
+    void singleRangesIncludingOpenEndedAndSuffix() {
+        assertThat(FileStreamer.parseRanges("bytes=0-99", LENGTH)).containsExactly(new long[]{0, 99});
+        assertThat(FileStreamer.parseRanges("bytes=900-", LENGTH)).containsExactly(new long[]{900, 999});
+        assertThat(FileStreamer.parseRanges("bytes=-100", LENGTH)).containsExactly(new long[]{900, 999});
+    }
+
+    @Test
+    void endPastTheFileIsClamped() {
+        assertThat(FileStreamer.parseRanges("bytes=950-5000", LENGTH)).containsExactly(new long[]{950, 999});
+    }
+
+    @Test
+    void rangesAreSortedAndOverlappingOrAdjacentOnesMerged() {
+        List<long[]> ranges = FileStreamer.parseRanges("bytes=500-599,0-9,550-649,10-19,800-809", LENGTH);
+
+        assertThat(ranges).containsExactly(new long[]{0, 19}, new long[]{500, 649}, new long[]{800, 809});
+    }
+
+    @Test
+    void rangesAddingUpToTheFileLengthGetTheWholeFile() {
+        assertThat(FileStreamer.parseRanges("bytes=0-599,400-999", LENGTH)).isEmpty();
+        assertThat(FileStreamer.parseRanges("bytes=0-0,0-0,0-999", LENGTH)).isEmpty();
+    }
+
+    @Test
+    void unsatisfiableRangesAreDroppedAndOnlyUnsatisfiableRejected() {
+        assertThat(FileStreamer.parseRanges("bytes=2000-2100,0-9", LENGTH)).containsExactly(new long[]{0, 9});
+        assertThatThrownBy(() -> FileStreamer.parseRanges("bytes=2000-2100", LENGTH))
+                .isInstanceOf(IllegalArgumentException.class);
+    }
+
+    @Test
+    void malformedHeaderIsIgnored() {
+        assertThat(FileStreamer.parseRanges("bytes=abc", LENGTH)).isEmpty();
+    }
+}